@@ -0,0 +1,94 @@
+package cache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.Cache;
+import cache.LRUPolicy;
+
+/**
+ * Allocation of Cache.search once the cache is full, for the default LRUList
+ * backing and for caches built over the linked lists. Promotions relink the
+ * item's node and evictions hand their node to the next item added, so every
+ * backing should report a gc.alloc.rate.norm of about 0 B/op. Run with
+ * -prof gc.
+ * <ul>
+ * <li>searchHit: every key is resident, so every search promotes.</li>
+ * <li>searchMiss: keys cycle through more distinct keys than the cache holds,
+ * so every search adds one item and evicts another.</li>
+ * <li>searchMixed: keys follow a Zipfian distribution over four times as many
+ * keys as the cache holds.</li>
+ * </ul>
+ * The caches are small because the lists find items by scanning.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+	private static final int STREAM_LENGTH = 1 << 20;
+	private static final int STREAM_MASK = STREAM_LENGTH - 1;
+
+	@Param({ "lru", "single", "double" })
+	String backing;
+
+	@Param({ "256" })
+	int size;
+
+	private Cache<Integer> cache;
+	private Integer[] hitKeys;
+	private Integer[] mixedKeys;
+	private Integer[] missKeys;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		hitKeys = KeyDistribution.keys("zipf", size, STREAM_LENGTH, 1);
+		mixedKeys = KeyDistribution.keys("zipf", 4 * size, STREAM_LENGTH, 2);
+		missKeys = KeyDistribution.sequence(size, STREAM_LENGTH);
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		if (backing.equals("lru")) {
+			cache = new Cache<Integer>(size, new LRUPolicy<Integer>(size));
+		} else {
+			cache = new Cache<Integer>(size, ListBenchmark.create(backing));
+		}
+		for (int i = 0; i < size; i++) {
+			cache.addObject(i);
+		}
+		index = 0;
+	}
+
+	@Benchmark
+	public int searchHit() {
+		return cache.search(hitKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public int searchMiss() {
+		return cache.search(missKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public int searchMixed() {
+		return cache.search(mixedKeys[index++ & STREAM_MASK]);
+	}
+}
@@ -0,0 +1,103 @@
+package cache.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.Cache;
+import cache.ConcurrentCache;
+
+/**
+ * Searches of BATCH keys at a time, one search at a time against searchAll,
+ * for Cache and ConcurrentCache. Keys follow the distribution over four times
+ * as many keys as the cache holds. Scores are searches per microsecond.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+	private static final int STREAM_LENGTH = 1 << 20;
+	private static final int BATCH = 64;
+	private static final int BATCHES = STREAM_LENGTH / BATCH;
+
+	@Param({ "1024", "65536" })
+	int size;
+
+	@Param({ "uniform", "zipf" })
+	String distribution;
+
+	private Cache<Integer> cache;
+	private ConcurrentCache<Integer> concurrent;
+	private Integer[][] batches;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Integer[] keys = KeyDistribution.keys(distribution, 4 * size, STREAM_LENGTH, 2);
+		batches = new Integer[BATCHES][];
+		for (int i = 0; i < BATCHES; i++) {
+			batches[i] = Arrays.copyOfRange(keys, i * BATCH, (i + 1) * BATCH);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		cache = new Cache<Integer>(size);
+		concurrent = new ConcurrentCache<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			cache.addObject(i);
+			concurrent.addObject(i);
+		}
+		index = 0;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int searchEach() {
+		int hits = 0;
+		for (Integer key : batches[index++ % BATCHES]) {
+			hits += cache.search(key);
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int searchAll() {
+		return cache.searchAll(batches[index++ % BATCHES]).hitCount();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int concurrentSearchEach() {
+		int hits = 0;
+		for (Integer key : batches[index++ % BATCHES]) {
+			hits += concurrent.search(key);
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int concurrentSearchAll() {
+		return concurrent.searchAll(batches[index++ % BATCHES]).hitCount();
+	}
+}
@@ -0,0 +1,95 @@
+package cache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.Cache;
+import cache.EvictionPolicy;
+
+/**
+ * Throughput of Cache.search and Cache.addObject.
+ * <ul>
+ * <li>searchHit: every key is resident.</li>
+ * <li>searchMiss: keys cycle through more distinct keys than the cache holds,
+ * so under LRU every search misses and evicts.</li>
+ * <li>searchMixed: keys follow the distribution over four times as many keys
+ * as the cache holds.</li>
+ * <li>addObjectEviction: adds new keys to a full cache.</li>
+ * </ul>
+ * Run with -prof gc to see the allocation rate per operation.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+	private static final int STREAM_LENGTH = 1 << 20;
+	private static final int STREAM_MASK = STREAM_LENGTH - 1;
+
+	@Param({ "1024", "65536" })
+	int size;
+
+	@Param({ "uniform", "zipf" })
+	String distribution;
+
+	@Param({ "lru" })
+	String policy;
+
+	private Cache<Integer> cache;
+	private Integer[] hitKeys;
+	private Integer[] mixedKeys;
+	private Integer[] missKeys;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		hitKeys = KeyDistribution.keys(distribution, size, STREAM_LENGTH, 1);
+		mixedKeys = KeyDistribution.keys(distribution, 4 * size, STREAM_LENGTH, 2);
+		missKeys = KeyDistribution.sequence(size, STREAM_LENGTH);
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		cache = new Cache<Integer>(size, EvictionPolicy.<Integer>create(policy, size));
+		for (int i = 0; i < size; i++) {
+			cache.addObject(i);
+		}
+		index = 0;
+	}
+
+	@Benchmark
+	public int searchHit() {
+		return cache.search(hitKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public int searchMiss() {
+		return cache.search(missKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public int searchMixed() {
+		return cache.search(mixedKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public Integer addObjectEviction() {
+		return cache.addObject(missKeys[index++ & STREAM_MASK]);
+	}
+}
@@ -0,0 +1,125 @@
+package cache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.IUConcurrentLinkedList;
+import cache.IUSingleLinkedList;
+import cache.IndexedUnsortedList;
+
+/**
+ * Throughput of one list shared by several threads: the lock-free
+ * IUConcurrentLinkedList against an IUSingleLinkedList with every call made
+ * holding its lock. Each operation adds a thread's own key to the front or
+ * rear, looks up one of the preloaded keys and removes the key again, so the
+ * list stays at its preloaded size. The synchronized list takes its lock for
+ * each of the three calls, as ListStressDriver does. Change the thread count
+ * with -t.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentListBenchmark {
+	private static final int STREAM_LENGTH = 1 << 16;
+	private static final int STREAM_MASK = STREAM_LENGTH - 1;
+	private static final int ADD_TO_FRONT = 0;
+	private static final int ADD_TO_REAR = 1;
+	private static final int CONTAINS = 2;
+	private static final int REMOVE = 3;
+
+	@Param({ "concurrent", "synchronized" })
+	String list;
+
+	@Param({ "100", "1000" })
+	int size;
+
+	private IndexedUnsortedList<Integer> elements;
+	private boolean synchronize;
+	private Integer[] lookups;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		synchronize = list.equals("synchronized");
+		elements = synchronize ? new IUSingleLinkedList<Integer>() : new IUConcurrentLinkedList<Integer>();
+		for (Integer key : KeyDistribution.sequence(0, size)) {
+			elements.addToRear(key);
+		}
+		lookups = KeyDistribution.keys("uniform", size, STREAM_LENGTH, 1);
+	}
+
+	/** Each thread's own keys, above the preloaded ones */
+	@State(Scope.Thread)
+	public static class ThreadKeys {
+		private static int threads;
+		private int base;
+		private int index;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			synchronized (ThreadKeys.class) {
+				base = (++threads) << 24;
+			}
+		}
+
+		Integer next() {
+			return base + (index++ & 0xFFFFFF);
+		}
+	}
+
+	@Benchmark
+	public boolean addContainsRemove(ThreadKeys keys) {
+		Integer key = keys.next();
+		if ((key & 1) == 0) {
+			call(ADD_TO_FRONT, key);
+		} else {
+			call(ADD_TO_REAR, key);
+		}
+		boolean found = call(CONTAINS, lookups[keys.index & STREAM_MASK]);
+		call(REMOVE, key);
+		return found;
+	}
+
+	/** Makes one call on the list, holding its lock for the synchronized list */
+	private boolean call(int operation, Integer key) {
+		if (synchronize) {
+			synchronized (elements) {
+				return apply(operation, key);
+			}
+		}
+		return apply(operation, key);
+	}
+
+	private boolean apply(int operation, Integer key) {
+		switch (operation) {
+		case ADD_TO_FRONT:
+			elements.addToFront(key);
+			return true;
+		case ADD_TO_REAR:
+			elements.addToRear(key);
+			return true;
+		case REMOVE:
+			return elements.remove(key) != null;
+		default:
+			return elements.contains(key);
+		}
+	}
+}
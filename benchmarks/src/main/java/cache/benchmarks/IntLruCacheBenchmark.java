@@ -0,0 +1,79 @@
+package cache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.IntLruCache;
+
+/**
+ * Throughput of IntLruCache.search on the same key streams as CacheBenchmark,
+ * for comparison with the boxed Cache. Run with -prof gc to check that no
+ * benchmark allocates.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntLruCacheBenchmark {
+	private static final int STREAM_LENGTH = 1 << 20;
+	private static final int STREAM_MASK = STREAM_LENGTH - 1;
+
+	@Param({ "1024", "65536" })
+	int size;
+
+	@Param({ "uniform", "zipf" })
+	String distribution;
+
+	private IntLruCache cache;
+	private int[] hitKeys;
+	private int[] mixedKeys;
+	private int[] missKeys;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		hitKeys = KeyDistribution.unbox(KeyDistribution.keys(distribution, size, STREAM_LENGTH, 1));
+		mixedKeys = KeyDistribution.unbox(KeyDistribution.keys(distribution, 4 * size, STREAM_LENGTH, 2));
+		missKeys = KeyDistribution.unbox(KeyDistribution.sequence(size, STREAM_LENGTH));
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		cache = new IntLruCache(size);
+		for (int i = 0; i < size; i++) {
+			cache.addObject(i);
+		}
+		index = 0;
+	}
+
+	@Benchmark
+	public int searchHit() {
+		return cache.search(hitKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public int searchMiss() {
+		return cache.search(missKeys[index++ & STREAM_MASK]);
+	}
+
+	@Benchmark
+	public int searchMixed() {
+		return cache.search(mixedKeys[index++ & STREAM_MASK]);
+	}
+}
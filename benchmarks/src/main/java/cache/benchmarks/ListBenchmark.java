@@ -0,0 +1,136 @@
+package cache.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.IUDoubleLinkedList;
+import cache.IUSingleLinkedList;
+import cache.IUSkipList;
+import cache.IUUnrolledLinkedList;
+import cache.IndexedUnsortedList;
+
+/**
+ * Throughput of the IndexedUnsortedList implementations: indexed get at the
+ * front, middle and rear, indexOf of a missing element, a full traversal by
+ * iterator, by forEach and by sequential and parallel stream, an insert and
+ * remove in the middle, and the addToFront/removeLast pair the cache
+ * performs on every eviction.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+	@Param({ "single", "double", "unrolled", "skip" })
+	String list;
+
+	@Param({ "1000", "10000" })
+	int size;
+
+	private IndexedUnsortedList<Integer> elements;
+	private Integer missing;
+	private Integer added;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		elements = create(list);
+		for (Integer key : KeyDistribution.sequence(0, size)) {
+			elements.addToRear(key);
+		}
+		missing = -1;
+		added = size;
+	}
+
+	/** Creates an empty list of the named implementation */
+	static IndexedUnsortedList<Integer> create(String name) {
+		switch (name) {
+		case "single":
+			return new IUSingleLinkedList<Integer>();
+		case "double":
+			return new IUDoubleLinkedList<Integer>();
+		case "unrolled":
+			return new IUUnrolledLinkedList<Integer>();
+		case "skip":
+			return new IUSkipList<Integer>();
+		default:
+			throw new IllegalArgumentException("Unknown list " + name);
+		}
+	}
+
+	@Benchmark
+	public Integer getFirst() {
+		return elements.get(0);
+	}
+
+	@Benchmark
+	public Integer getMiddle() {
+		return elements.get(size / 2);
+	}
+
+	@Benchmark
+	public Integer getLast() {
+		return elements.get(size - 1);
+	}
+
+	@Benchmark
+	public int indexOfMissing() {
+		return elements.indexOf(missing);
+	}
+
+	@Benchmark
+	public long iterate() {
+		long sum = 0;
+		Iterator<Integer> it = elements.iterator();
+		while (it.hasNext()) {
+			sum += it.next();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long forEachSum() {
+		long[] sum = new long[1];
+		elements.forEach(element -> sum[0] += element);
+		return sum[0];
+	}
+
+	@Benchmark
+	public long streamSum() {
+		return elements.stream().mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long parallelStreamSum() {
+		return elements.parallelStream().mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public Integer addRemoveMiddle() {
+		elements.add(size / 2, added);
+		return elements.remove(size / 2);
+	}
+
+	@Benchmark
+	public Integer addToFrontRemoveLast() {
+		elements.addToFront(added);
+		return elements.removeLast();
+	}
+}
@@ -0,0 +1,78 @@
+package cache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.Cache;
+import cache.CacheHierarchy;
+import cache.EvictionPolicy;
+
+/**
+ * The replay loop of Test over an in-memory trace of words, for one cache and
+ * for the two-level inclusive hierarchy. Scores are searches per microsecond.
+ *
+ * @author chloejohnson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+	private static final int TRACE_LENGTH = 1 << 16;
+
+	@Param({ "100", "10000" })
+	int size;
+
+	@Param({ "zipf" })
+	String distribution;
+
+	@Param({ "lru" })
+	String policy;
+
+	private String[] trace;
+
+	@Setup
+	public void setUp() {
+		Integer[] keys = KeyDistribution.keys(distribution, 20 * size, TRACE_LENGTH, 3);
+		trace = new String[TRACE_LENGTH];
+		for (int i = 0; i < TRACE_LENGTH; i++) {
+			trace[i] = "word" + keys[i];
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TRACE_LENGTH)
+	public int oneLevel() {
+		Cache<String> cache = new Cache<String>(size, EvictionPolicy.<String>create(policy, size));
+		int hits = 0;
+		for (String word : trace) {
+			hits += cache.search(word);
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TRACE_LENGTH)
+	public long twoLevels() {
+		CacheHierarchy<String> hierarchy = new CacheHierarchy<String>(CacheHierarchy.Mode.INCLUSIVE, policy,
+				size, 4 * size);
+		for (String word : trace) {
+			hierarchy.search(word);
+		}
+		return hierarchy.getGlobalHits();
+	}
+}
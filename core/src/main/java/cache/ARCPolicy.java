@@ -0,0 +1,196 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Adaptive Replacement Cache (ARC) of Megiddo and Modha. Resident items are
+ * split between T1, items seen once recently, and T2, items seen at least
+ * twice. Ghost lists B1 and B2 remember the keys recently evicted from each.
+ * A miss that hits a ghost list moves the target size p of T1 towards the list
+ * that would have kept the item, so the balance between recency and frequency
+ * adapts to the workload. Every step is constant time.
+ *
+ * The Cache adds an item before it evicts, while ARC's REPLACE step runs before
+ * the new item is placed in T1, so evict() leaves the newly added item out
+ * when it compares T1 against p.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class ARCPolicy<E> implements EvictionPolicy<E> {
+	private final int capacity;
+	private int p;
+	private LRUList<E> t1, t2, b1, b2;
+
+	// state carried from add() to the evict() it causes
+	private E newest;
+	private boolean ghostHitInB2;
+	private boolean dropFromT1;
+
+	/**
+	 * Creates an empty policy for a cache of the given capacity.
+	 *
+	 * @param capacity the capacity of the cache
+	 */
+	public ARCPolicy(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		p = 0;
+		t1 = new LRUList<E>(capacity);
+		t2 = new LRUList<E>(capacity);
+		b1 = new LRUList<E>(capacity);
+		b2 = new LRUList<E>(capacity);
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return t1.contains(e) || t2.contains(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		if (t2.moveToFront(e)) {
+			return true;
+		}
+		if (t1.contains(e)) {
+			t1.remove(e);
+			t2.addToFront(e);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void add(E e) {
+		newest = null;
+		ghostHitInB2 = false;
+		dropFromT1 = false;
+		if (b1.contains(e)) {
+			p = Math.min(capacity, p + Math.max(b2.size() / b1.size(), 1));
+			b1.remove(e);
+			t2.addToFront(e);
+			return;
+		}
+		if (b2.contains(e)) {
+			p = Math.max(0, p - Math.max(b1.size() / b2.size(), 1));
+			b2.remove(e);
+			t2.addToFront(e);
+			ghostHitInB2 = true;
+			return;
+		}
+		if (t1.size() + t2.size() >= capacity) {
+			if (t1.size() + b1.size() >= capacity) {
+				if (t1.size() < capacity) {
+					b1.removeLast();
+				} else {
+					// B1 is empty and T1 fills the cache; its LRU item is dropped
+					// without being remembered
+					dropFromT1 = true;
+				}
+			} else if (t1.size() + t2.size() + b1.size() + b2.size() >= 2 * capacity) {
+				b2.removeLast();
+			}
+		}
+		t1.addToFront(e);
+		newest = e;
+	}
+
+	@Override
+	public boolean defersEviction() {
+		// evict() leaves out the item the last add() placed in T1
+		return false;
+	}
+
+	@Override
+	public E evict() {
+		if (t1.isEmpty() && t2.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		int t1Size = t1.size();
+		if (newest != null && t1.contains(newest)) {
+			t1Size--;
+		}
+		E victim;
+		if (dropFromT1 && t1Size > 0) {
+			victim = t1.removeLast();
+		} else if (t1Size > 0 && (t1Size > p || (ghostHitInB2 && t1Size == p)) || t2.isEmpty()) {
+			victim = t1.removeLast();
+			b1.addToFront(victim);
+		} else {
+			victim = t2.removeLast();
+			b2.addToFront(victim);
+		}
+		newest = null;
+		ghostHitInB2 = false;
+		dropFromT1 = false;
+		trimGhosts();
+		return victim;
+	}
+
+	@Override
+	public void remove(E e) {
+		if (t1.contains(e)) {
+			t1.remove(e);
+		} else {
+			t2.remove(e);
+		}
+	}
+
+	@Override
+	public int size() {
+		return t1.size() + t2.size();
+	}
+
+	@Override
+	public void clear() {
+		t1.clear();
+		t2.clear();
+		b1.clear();
+		b2.clear();
+		p = 0;
+		newest = null;
+		ghostHitInB2 = false;
+		dropFromT1 = false;
+	}
+
+	/**
+	 * Returns the current target size of T1.
+	 *
+	 * @return p
+	 */
+	public int target() {
+		return p;
+	}
+
+	/**
+	 * Iterates over T2, most recently used first, then over T1. The items are
+	 * copied first, so the iterator doesn't support removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		ArrayList<E> items = new ArrayList<E>(size());
+		for (E e : t2) {
+			items.add(e);
+		}
+		for (E e : t1) {
+			items.add(e);
+		}
+		return Collections.unmodifiableList(items).iterator();
+	}
+
+	/**
+	 * Keeps the directory within ARC's bounds when evictions happen outside the
+	 * usual miss sequence, for example when a Cache is trimmed explicitly.
+	 */
+	private void trimGhosts() {
+		while (t1.size() + b1.size() > capacity && !b1.isEmpty()) {
+			b1.removeLast();
+		}
+		while (t1.size() + t2.size() + b1.size() + b2.size() > 2 * capacity && !b2.isEmpty()) {
+			b2.removeLast();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package cache;
+
+/**
+ * Decides whether an item that missed is worth caching, as TinyLFU does. Every
+ * search is recorded: the first time an item is seen it only goes into a
+ * Doorkeeper, and after that it is counted in a FrequencySketch. An item that
+ * missed is admitted only if its estimated frequency is higher than that of
+ * the item the Cache would evict to make room for it, so an item seen once
+ * can't push out one that is searched for again and again.
+ *
+ * The sketch is aged by halving its counters after ten counted searches per
+ * cached item, and the doorkeeper is cleared at the same time, so items that
+ * were popular once lose their advantage. The sketch has half a long per
+ * cached item and the doorkeeper one byte, about five bytes per item, twice
+ * that at most when the sizes are rounded up to powers of two.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of the items filtered
+ */
+public class AdmissionFilter<E> {
+	private final FrequencySketch<E> sketch;
+	private final Doorkeeper<E> doorkeeper;
+	private long admitted;
+	private long rejected;
+
+	/**
+	 * Creates a filter for a cache of the given capacity.
+	 *
+	 * @param capacity the number of items the cache holds
+	 */
+	public AdmissionFilter(int capacity) {
+		int items = Math.min(Math.max(capacity, 1), 1 << 26);
+		sketch = new FrequencySketch<E>(items / 2, 10 * items);
+		doorkeeper = new Doorkeeper<E>(items);
+	}
+
+	/**
+	 * Records a search for the item, whether it hit or missed.
+	 *
+	 * @param e the item searched for
+	 */
+	public void record(E e) {
+		if (!doorkeeper.put(e) && sketch.increment(e)) {
+			doorkeeper.clear();
+		}
+	}
+
+	/**
+	 * Returns the estimated number of times the item was searched for since
+	 * the filter was last aged, at most 16.
+	 *
+	 * @param e the item
+	 * @return the estimated frequency
+	 */
+	public int frequency(E e) {
+		int frequency = sketch.frequency(e);
+		return doorkeeper.mightContain(e) ? frequency + 1 : frequency;
+	}
+
+	/**
+	 * Returns true if the candidate should replace the victim, which is when it
+	 * has been searched for more often. Ties keep the victim.
+	 *
+	 * @param candidate the item that missed
+	 * @param victim    the item that would be evicted for it
+	 * @return true if the candidate should be cached
+	 */
+	public boolean admit(E candidate, E victim) {
+		if (frequency(candidate) > frequency(victim)) {
+			admitted++;
+			return true;
+		}
+		rejected++;
+		return false;
+	}
+
+	/**
+	 * Returns the number of candidates admitted.
+	 */
+	public long admittedCount() {
+		return admitted;
+	}
+
+	/**
+	 * Returns the number of candidates rejected.
+	 */
+	public long rejectedCount() {
+		return rejected;
+	}
+
+	/**
+	 * Forgets every search recorded. The counts of admitted and rejected
+	 * candidates are kept.
+	 */
+	public void clear() {
+		sketch.clear();
+		doorkeeper.clear();
+	}
+}
@@ -0,0 +1,83 @@
+package cache;
+
+import java.util.BitSet;
+
+/**
+ * The outcome of a batch operation on a Cache or ConcurrentCache: which of the
+ * items in the batch were found, by their position in the batch, and how many
+ * were found and not found in all.
+ *
+ * @author chloejohnson
+ */
+public final class BatchResult {
+	private final BitSet hits;
+	private final int size;
+	private final int hitCount;
+
+	/*
+	 * Creates a result for a batch of the given size whose hits are the set
+	 * bits. The BitSet is kept, not copied.
+	 */
+	BatchResult(BitSet hits, int size) {
+		this.hits = hits;
+		this.size = size;
+		hitCount = hits.cardinality();
+	}
+
+	/**
+	 * Returns the number of items in the batch, counting repeats.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if the item at a position in the batch was found.
+	 *
+	 * @param index the position of the item in the batch
+	 * @return true if it was a hit
+	 * @throws IndexOutOfBoundsException if the index is outside the batch
+	 */
+	public boolean isHit(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is outside a batch of " + size);
+		}
+		return hits.get(index);
+	}
+
+	/**
+	 * Returns a bitmap with a bit set at the position of each item that was
+	 * found.
+	 *
+	 * @return a copy of the bitmap
+	 */
+	public BitSet hits() {
+		return (BitSet) hits.clone();
+	}
+
+	/**
+	 * Returns the number of items found.
+	 */
+	public int hitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of items not found.
+	 */
+	public int missCount() {
+		return size - hitCount;
+	}
+
+	/**
+	 * Returns the fraction of the items that were found, or 1 for an empty
+	 * batch.
+	 */
+	public double hitRatio() {
+		return (size == 0) ? 1.0 : (double) hitCount / size;
+	}
+
+	public String toString() {
+		return "BatchResult[size=" + size + ", hits=" + hitCount + ", misses=" + missCount() + "]";
+	}
+}
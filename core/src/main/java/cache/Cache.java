@@ -0,0 +1,727 @@
+package cache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Cache class implements a cache categorized as level 1 or level 2.
+ * Categorization of the levels is necessary for the search function. The
+ * search function distinguishes the Cache class from a plain list through the
+ * use of operations that check the Cache for a data item.
+ *
+ * Which item is evicted when the Cache is full is decided by an
+ * EvictionPolicy. By default the policy is least recently used, kept in an
+ * LRUList, which pairs a hash index with a doubly linked recency list, so
+ * searching, moving an item to the front and evicting the last item are all
+ * constant time. A Cache can also be built over any IndexedUnsortedList, in
+ * which case the list holds the items in recency order and can be inspected by
+ * position.
+ *
+ * The Cache counts its hits, misses, evictions and promotions and samples the
+ * latency of search as it goes; stats() returns a snapshot of the counts.
+ *
+ * Items can also expire a fixed time after they are added (expireAfterWrite),
+ * after they were last searched for (expireAfterAccess), or at a time given
+ * for each item when it is added. Expiry times are kept in a TimingWheel, and
+ * every search or add advances the wheel to the current time and removes the
+ * items it passes, so expired items are reclaimed a few at a time without
+ * scanning the Cache. An expired item that hasn't been reclaimed yet is still
+ * a miss. Expired items count as evictions.
+ *
+ * Instead of a number of items, a Cache can be bounded by the total weight of
+ * its items, as reported by a Weigher, for example their sizes in bytes. Each
+ * item is weighed once when it is added and the running total is kept, so the
+ * bookkeeping is constant time; after each add, items are evicted until the
+ * total is back under the maximum weight.
+ *
+ * searchAll, getAll and putAll work on a batch of items in one pass. The clock
+ * is read and the counts are recorded once per batch rather than once per
+ * item, and the items a batch pushes out are evicted together at its end, so
+ * an item added early in a batch is still found later in it. Policies whose
+ * defersEviction() is false are evicted after each add instead. Batches are
+ * not timed.
+ *
+ * A Cache can also refuse items that missed, with admitByFrequency. Every
+ * search is then recorded in an AdmissionFilter, a compact count-min sketch
+ * behind a Bloom filter that estimates how often each item is searched for,
+ * and once the Cache is full an item that missed is only added if it has been
+ * searched for more often than the victim removeLast() would evict. Items seen
+ * once, which are most of the misses in many traces, then no longer push out
+ * items that are searched for again. Items added with addObject or putAll are
+ * always added.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class Cache<E> {
+
+	// what a batch does with each of its items
+	private static final int SEARCH = 0;
+	private static final int GET = 1;
+	private static final int PUT = 2;
+
+	private int size;
+	private EvictionPolicy<E> policy;
+	private final StatsCounter stats = new SimpleStatsCounter();
+
+	// expiry, which is off until a duration is set
+	private Ticker ticker = Ticker.SYSTEM;
+	private TimingWheel<E> wheel;
+	private HashMap<E, Long> writeDeadlines;
+	private long expireAfterWriteNanos = -1;
+	private long expireAfterAccessNanos = -1;
+
+	// weight bound, which is off unless the Cache was created with a Weigher
+	private Weigher<? super E> weigher;
+	private HashMap<E, Integer> weights;
+	private long maximumWeight = Long.MAX_VALUE;
+	private long totalWeight = 0;
+
+	// admission, which is off until admitByFrequency is called
+	private AdmissionFilter<E> admission;
+
+	/*
+	 * Creates a new least recently used Cache of a specified size and level.
+	 */
+	public Cache(int size) {
+		this(size, new LRUPolicy<E>(size));
+	}
+
+	/*
+	 * Creates a new least recently used Cache of a specified size whose items
+	 * are kept in the given list, most recently used first. An
+	 * IUDoubleLinkedList keeps eviction constant time.
+	 */
+	public Cache(int size, IndexedUnsortedList<E> list) {
+		this(size, new ListPolicy<E>(list));
+	}
+
+	/*
+	 * Creates a new Cache of a specified size that evicts according to the given
+	 * policy. The policy must be empty and must not be shared.
+	 */
+	public Cache(int size, EvictionPolicy<E> policy) {
+		if (policy.size() != 0) {
+			throw new IllegalArgumentException("The policy of a Cache must be empty");
+		}
+		this.size = size;
+		this.policy = policy;
+	}
+
+	/*
+	 * Creates a new least recently used Cache whose items may weigh at most
+	 * maximumWeight in total, however many items that is. An item heavier than
+	 * maximumWeight on its own is never cached, and doesn't evict anything else.
+	 */
+	public Cache(long maximumWeight, Weigher<? super E> weigher) {
+		this(maximumWeight, weigher, new LRUPolicy<E>());
+	}
+
+	/*
+	 * Creates a new Cache whose items may weigh at most maximumWeight in total,
+	 * evicting according to the given policy. The policy must be empty and
+	 * must not be shared; policies that split their capacity, such as 2q, arc
+	 * and wtinylfu, should be created for the number of items expected.
+	 */
+	public Cache(long maximumWeight, Weigher<? super E> weigher, EvictionPolicy<E> policy) {
+		this(Integer.MAX_VALUE, policy);
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("The maximum weight can't be negative");
+		}
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		weights = new HashMap<E, Integer>();
+	}
+
+	/**
+	 * Adds a data item to the Cache, evicting an item if the Cache is full. If
+	 * the item is already cached it is moved to the front and weighed again.
+	 *
+	 * @param e
+	 * @return the evicted item, or null if nothing was evicted; a Cache bounded
+	 *         by weight may evict several, and returns the first
+	 */
+	public E addObject(E e) {
+		return addObject(e, expireAfterWriteNanos);
+	}
+
+	/**
+	 * Adds a data item to the Cache that expires after the given time instead
+	 * of the Cache's expireAfterWrite time, evicting an item if the Cache is
+	 * full. If the item is already cached it is moved to the front and its
+	 * expiry time and weight are replaced.
+	 *
+	 * @param e
+	 * @param duration how long until the item expires
+	 * @param unit     the unit of the duration
+	 * @return the evicted item, or null if nothing was evicted; a Cache bounded
+	 *         by weight may evict several, and returns the first
+	 */
+	public E addObject(E e, long duration, TimeUnit unit) {
+		long nanos = toNanos(duration, unit);
+		startExpiry();
+		return addObject(e, nanos);
+	}
+
+	private E addObject(E e, long writeNanos) {
+		int weight = (weigher != null) ? weigh(e) : 0;
+		long now = (wheel != null) ? expire(e) : 0;
+		if (rejectOverweight(e, weight)) {
+			return e;
+		}
+		if (policy.recordAccess(e)) {
+			stats.recordPromotion();
+		} else {
+			policy.add(e);
+		}
+		if (wheel != null) {
+			scheduleWrite(e, now, writeNanos);
+		}
+		if (weigher != null) {
+			Integer old = weights.put(e, weight);
+			totalWeight += weight - ((old == null) ? 0 : old);
+		}
+		E evicted = null;
+		while (isOverCapacity()) {
+			E victim = removeLast();
+			if (evicted == null) {
+				evicted = victim;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Removes the specified item from the Cache.
+	 *
+	 * @return E
+	 */
+	public E removeObject(E e) {
+		policy.remove(e);
+		if (wheel != null) {
+			forget(e);
+		}
+		if (weigher != null) {
+			unweigh(e);
+		}
+		return e;
+	}
+
+	/**
+	 * Removes the item the eviction policy chooses, which for the default policy
+	 * is the least recently used item.
+	 *
+	 * @return E
+	 */
+	public E removeLast() {
+		E victim = policy.evict();
+		stats.recordEviction();
+		if (wheel != null) {
+			forget(victim);
+		}
+		if (weigher != null) {
+			unweigh(victim);
+		}
+		return victim;
+	}
+
+	/**
+	 * Records a hit on the data item, which moves it to the front of the list
+	 * for the default policy.
+	 *
+	 * @throws NoSuchElementException if the item isn't cached
+	 */
+	public void moveToFront(E e) {
+		long now = (wheel != null) ? expire(e) : 0;
+		if (!policy.recordAccess(e)) {
+			throw new NoSuchElementException();
+		}
+		stats.recordPromotion();
+		if (wheel != null) {
+			scheduleAccess(e, now);
+		}
+	}
+
+	/**
+	 * Returns true if the item is cached and hasn't expired. Does not count as
+	 * a hit.
+	 */
+	public boolean contains(E e) {
+		return policy.contains(e) && (wheel == null || !wheel.isDue(e, ticker.read()));
+	}
+
+	/**
+	 * Returns the number of cached items, including expired items that haven't
+	 * been reclaimed yet.
+	 */
+	public int size() {
+		return policy.size();
+	}
+
+	/**
+	 * Returns the maximum number of cached items, which is unbounded for a
+	 * Cache bounded by weight.
+	 */
+	public int capacity() {
+		return size;
+	}
+
+	/**
+	 * Returns the total weight of the cached items, or 0 if the Cache has no
+	 * Weigher.
+	 */
+	public long weight() {
+		return totalWeight;
+	}
+
+	/**
+	 * Returns the maximum total weight of the cached items, which is unbounded
+	 * if the Cache has no Weigher.
+	 */
+	public long maximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * Returns the eviction policy of the Cache.
+	 */
+	public EvictionPolicy<E> getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Makes items expire the given time after they are added or replaced. Items
+	 * already cached keep their expiry times.
+	 *
+	 * @param duration how long an item is kept
+	 * @param unit     the unit of the duration
+	 */
+	public void expireAfterWrite(long duration, TimeUnit unit) {
+		expireAfterWriteNanos = toNanos(duration, unit);
+		startExpiry();
+	}
+
+	/**
+	 * Makes items expire the given time after they were last searched for or
+	 * added. Items already cached keep their expiry times until they are next
+	 * used.
+	 *
+	 * @param duration how long an unused item is kept
+	 * @param unit     the unit of the duration
+	 */
+	public void expireAfterAccess(long duration, TimeUnit unit) {
+		expireAfterAccessNanos = toNanos(duration, unit);
+		startExpiry();
+	}
+
+	/**
+	 * Sets the clock expiry times are measured with, System.nanoTime by default.
+	 *
+	 * @throws IllegalStateException if expiry is already in use
+	 */
+	public void setTicker(Ticker ticker) {
+		if (wheel != null) {
+			throw new IllegalStateException("The ticker must be set before expiry is used");
+		}
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Makes search add an item that missed only if it has been searched for
+	 * more often than the item that would be evicted for it. The estimates
+	 * come from an AdmissionFilter sized for the capacity of the Cache, which
+	 * takes about five bytes per item. Policies whose victim() is null, such as
+	 * clock, admit every item.
+	 *
+	 * @throws IllegalStateException if the Cache is bounded by weight, which
+	 *                               has no capacity to size the filter by
+	 */
+	public void admitByFrequency() {
+		if (weigher != null) {
+			throw new IllegalStateException("A Cache bounded by weight needs the number of items expected");
+		}
+		admitByFrequency(size);
+	}
+
+	/**
+	 * Makes search add an item that missed only if it has been searched for
+	 * more often than the item that would be evicted for it, with an
+	 * AdmissionFilter sized for the given number of items.
+	 *
+	 * @param expectedItems the number of items the Cache is expected to hold
+	 */
+	public void admitByFrequency(int expectedItems) {
+		admission = new AdmissionFilter<E>(expectedItems);
+	}
+
+	/**
+	 * Returns the admission filter of the Cache, or null if every item that
+	 * misses is added.
+	 */
+	public AdmissionFilter<E> getAdmissionFilter() {
+		return admission;
+	}
+
+	/**
+	 * Returns a snapshot of the counts recorded since the Cache was created.
+	 */
+	public CacheStats stats() {
+		return stats.snapshot();
+	}
+
+	/**
+	 * Removes all data items from the cache. The counts are kept.
+	 */
+	public void clearCache() {
+		policy.clear();
+		if (wheel != null) {
+			wheel.clear();
+			writeDeadlines.clear();
+		}
+		if (weigher != null) {
+			weights.clear();
+			totalWeight = 0;
+		}
+		if (admission != null) {
+			admission.clear();
+		}
+	}
+
+	/**
+	 * Searches the cache for the specified word. If the word isn't found, it's
+	 * added to the cache, unless the admission filter turns it away.
+	 *
+	 * @param word
+	 * @return
+	 */
+	public int search(E element) {
+		long start = stats.startTimer();
+		long now = (wheel != null) ? expire(element) : 0;
+		int hits = 0;
+		if (admission != null) {
+			admission.record(element);
+		}
+		if (policy.recordAccess(element)) {
+			hits++;
+			stats.recordHit();
+			stats.recordPromotion();
+			if (wheel != null) {
+				scheduleAccess(element, now);
+			}
+		}
+		else {
+			stats.recordMiss();
+			int weight = (weigher != null) ? weigh(element) : 0;
+			if (!rejectOverweight(element, weight) && (admission == null || admits(element, weight))) {
+				policy.add(element);
+				if (wheel != null) {
+					scheduleWrite(element, now, expireAfterWriteNanos);
+				}
+				if (weigher != null) {
+					weights.put(element, weight);
+					totalWeight += weight;
+				}
+				while (isOverCapacity()) {
+					removeLast();
+				}
+			}
+		}
+		stats.stopTimer(start);
+		return hits;
+	}
+
+	/**
+	 * Searches the cache for each item of a batch in order, adding the items
+	 * that aren't found, as search does for one item.
+	 *
+	 * @param elements the items to search for
+	 * @return which items were found
+	 */
+	public BatchResult searchAll(E[] elements) {
+		return batch(Arrays.asList(elements), SEARCH);
+	}
+
+	/**
+	 * Searches the cache for each item of a batch in order, adding the items
+	 * that aren't found, as search does for one item.
+	 *
+	 * @param elements the items to search for
+	 * @return which items were found
+	 */
+	public BatchResult searchAll(Collection<? extends E> elements) {
+		return batch(elements, SEARCH);
+	}
+
+	/**
+	 * Looks up each item of a batch, recording a hit on the items that are
+	 * cached. Items that aren't cached are not added, but count as misses.
+	 *
+	 * @param elements the items to look up
+	 * @return which items were found
+	 */
+	public BatchResult getAll(E[] elements) {
+		return batch(Arrays.asList(elements), GET);
+	}
+
+	/**
+	 * Looks up each item of a batch, recording a hit on the items that are
+	 * cached. Items that aren't cached are not added, but count as misses.
+	 *
+	 * @param elements the items to look up
+	 * @return which items were found
+	 */
+	public BatchResult getAll(Collection<? extends E> elements) {
+		return batch(elements, GET);
+	}
+
+	/**
+	 * Adds each item of a batch, as addObject does for one item, and evicts
+	 * once at the end. Does not count as searches.
+	 *
+	 * @param elements the items to add
+	 * @return which items were already cached
+	 */
+	public BatchResult putAll(E[] elements) {
+		return batch(Arrays.asList(elements), PUT);
+	}
+
+	/**
+	 * Adds each item of a batch, as addObject does for one item, and evicts
+	 * once at the end. Does not count as searches.
+	 *
+	 * @param elements the items to add
+	 * @return which items were already cached
+	 */
+	public BatchResult putAll(Collection<? extends E> elements) {
+		return batch(elements, PUT);
+	}
+
+	/**
+	 * Lists the items, starting with the one the policy values most.
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("[");
+		for (E e : policy) {
+			str.append(e.toString());
+			str.append(" , ");
+		}
+		if (str.length() > 1) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	/**
+	 * Runs a batch: each item is looked up and, unless the batch is a GET,
+	 * added if it is missing, and the Cache is brought back under capacity at
+	 * the end.
+	 */
+	private BatchResult batch(Collection<? extends E> elements, int mode) {
+		long now = 0;
+		if (wheel != null) {
+			now = ticker.read();
+			wheel.advance(now, this::reclaim);
+		}
+		boolean defer = policy.defersEviction();
+		BitSet hits = new BitSet(elements.size());
+		int index = 0;
+		int found = 0;
+		for (E e : elements) {
+			if (wheel != null && wheel.isDue(e, now)) {
+				wheel.deschedule(e);
+				reclaim(e);
+			}
+			int weight = (weigher != null && mode == PUT) ? weigh(e) : 0;
+			if (admission != null && mode != PUT) {
+				admission.record(e);
+			}
+			if (policy.recordAccess(e)) {
+				// a put too heavy to keep drops the cached copy, so it isn't found
+				if (mode != PUT || !rejectOverweight(e, weight)) {
+					hits.set(index);
+					found++;
+					if (mode == PUT) {
+						if (wheel != null) {
+							scheduleWrite(e, now, expireAfterWriteNanos);
+						}
+						if (weigher != null) {
+							Integer old = weights.put(e, weight);
+							totalWeight += weight - ((old == null) ? 0 : old);
+						}
+					} else if (wheel != null) {
+						scheduleAccess(e, now);
+					}
+				}
+			} else if (mode != GET) {
+				if (weigher != null && mode == SEARCH) {
+					weight = weigh(e);
+				}
+				if (!rejectOverweight(e, weight) && (mode == PUT || admission == null || admits(e, weight))) {
+					policy.add(e);
+					if (wheel != null) {
+						scheduleWrite(e, now, expireAfterWriteNanos);
+					}
+					if (weigher != null) {
+						weights.put(e, weight);
+						totalWeight += weight;
+					}
+					while (!defer && isOverCapacity()) {
+						removeLast();
+					}
+				}
+			}
+			index++;
+		}
+		stats.recordPromotions(found);
+		if (mode != PUT) {
+			stats.recordSearches(found, index - found);
+		}
+		while (isOverCapacity()) {
+			removeLast();
+		}
+		return new BatchResult(hits, index);
+	}
+
+	/**
+	 * Advances the timing wheel to the current time, reclaiming the items it
+	 * passes, and reclaims the given item if it is due.
+	 *
+	 * @return the current time
+	 */
+	private long expire(E e) {
+		long now = ticker.read();
+		wheel.advance(now, this::reclaim);
+		if (wheel.isDue(e, now)) {
+			wheel.deschedule(e);
+			reclaim(e);
+		}
+		return now;
+	}
+
+	/** Removes an item the timing wheel has expired */
+	private void reclaim(E e) {
+		policy.remove(e);
+		writeDeadlines.remove(e);
+		if (weigher != null) {
+			unweigh(e);
+		}
+		stats.recordEviction();
+	}
+
+	/**
+	 * Returns true if an item that missed should be added: if it fits without
+	 * an eviction, if the policy can't name its victim, or if the admission
+	 * filter prefers it to the victim.
+	 */
+	private boolean admits(E e, int weight) {
+		if (policy.size() < size && totalWeight + weight <= maximumWeight) {
+			return true;
+		}
+		E victim = policy.victim();
+		return victim == null || admission.admit(e, victim);
+	}
+
+	/**
+	 * Returns true if an item weighs more than the Cache can hold at all, after
+	 * dropping any copy of it already cached, which counts as an eviction.
+	 * Adding it would evict every other item before evicting it too.
+	 */
+	private boolean rejectOverweight(E e, int weight) {
+		if (weight <= maximumWeight) {
+			return false;
+		}
+		if (weights.containsKey(e)) {
+			removeObject(e);
+			stats.recordEviction();
+		}
+		return true;
+	}
+
+	/** Returns true if the Cache holds too many items or too much weight */
+	private boolean isOverCapacity() {
+		return policy.size() > size || totalWeight > maximumWeight;
+	}
+
+	private int weigh(E e) {
+		int weight = weigher.weigh(e);
+		if (weight < 0) {
+			throw new IllegalArgumentException("The weight of " + e + " is negative");
+		}
+		return weight;
+	}
+
+	private void unweigh(E e) {
+		Integer weight = weights.remove(e);
+		if (weight != null) {
+			totalWeight -= weight;
+		}
+	}
+
+	/** Drops the expiry time of an item that has left the Cache */
+	private void forget(E e) {
+		wheel.deschedule(e);
+		writeDeadlines.remove(e);
+	}
+
+	/**
+	 * Schedules an item that was added or replaced, at the earlier of its write
+	 * and access expiry times.
+	 */
+	private void scheduleWrite(E e, long now, long writeNanos) {
+		if (writeNanos < 0 && expireAfterAccessNanos < 0) {
+			forget(e);
+			return;
+		}
+		long deadline;
+		if (writeNanos >= 0) {
+			deadline = now + writeNanos;
+			writeDeadlines.put(e, deadline);
+			if (expireAfterAccessNanos >= 0) {
+				deadline = earlier(deadline, now + expireAfterAccessNanos);
+			}
+		} else {
+			writeDeadlines.remove(e);
+			deadline = now + expireAfterAccessNanos;
+		}
+		wheel.schedule(e, deadline);
+	}
+
+	/** Pushes back the expiry time of an item that was searched for */
+	private void scheduleAccess(E e, long now) {
+		if (expireAfterAccessNanos < 0) {
+			return;
+		}
+		long deadline = now + expireAfterAccessNanos;
+		Long writeDeadline = writeDeadlines.get(e);
+		if (writeDeadline != null) {
+			deadline = earlier(deadline, writeDeadline);
+		}
+		wheel.schedule(e, deadline);
+	}
+
+	private void startExpiry() {
+		if (wheel == null) {
+			wheel = new TimingWheel<E>(ticker.read());
+			writeDeadlines = new HashMap<E, Long>();
+		}
+	}
+
+	private static long earlier(long a, long b) {
+		return (a - b <= 0) ? a : b;
+	}
+
+	/** Converts a duration to nanoseconds, capped at about 146 years */
+	private static long toNanos(long duration, TimeUnit unit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("A duration can't be negative");
+		}
+		return Math.min(unit.toNanos(duration), 1L << 62);
+	}
+}
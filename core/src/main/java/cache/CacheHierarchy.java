@@ -0,0 +1,233 @@
+package cache;
+
+import java.util.ArrayList;
+
+/**
+ * The CacheHierarchy class chains any number of Caches into levels, level 1
+ * being searched first. A level is only referenced when every level above it
+ * missed. The hierarchy counts references and hits for every level as well as
+ * globally.
+ *
+ * How the levels share items depends on the mode:
+ * <ul>
+ * <li>INCLUSIVE: every level caches the item on a miss, and a hit refreshes
+ * the item in all the levels below, so each level holds what the levels above
+ * it hold. An item evicted from a level is also removed from the levels above
+ * it to keep inclusion.</li>
+ * <li>EXCLUSIVE: an item is in at most one level. Misses fill level 1, a hit in
+ * a lower level moves the item up to level 1, and the victims of each level are
+ * demoted into the level below. With no duplicates the same total size holds
+ * more distinct items.</li>
+ * <li>VICTIM: like EXCLUSIVE, each level below level 1 only receives the
+ * victims of the level above it, but a hit there swaps the item with the
+ * victim of the level just above, so items climb one level per hit.</li>
+ * </ul>
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class CacheHierarchy<E> {
+
+	/** How the levels share items */
+	public enum Mode {
+		INCLUSIVE, EXCLUSIVE, VICTIM
+	}
+
+	private Mode mode;
+	private ArrayList<Cache<E>> levels;
+	private long[] hits;
+	private long[] references;
+
+	/*
+	 * Creates a hierarchy of least recently used Caches with the given sizes,
+	 * level 1 first.
+	 */
+	public CacheHierarchy(Mode mode, int... sizes) {
+		this(mode, "lru", sizes);
+	}
+
+	/*
+	 * Creates a hierarchy of Caches with the given sizes, level 1 first, each
+	 * evicting with the named policy.
+	 */
+	public CacheHierarchy(Mode mode, String policy, int... sizes) {
+		if (sizes.length == 0) {
+			throw new IllegalArgumentException("A cache hierarchy needs at least one level");
+		}
+		this.mode = mode;
+		levels = new ArrayList<Cache<E>>(sizes.length);
+		for (int size : sizes) {
+			levels.add(new Cache<E>(size, EvictionPolicy.<E>create(policy, size)));
+		}
+		hits = new long[sizes.length];
+		references = new long[sizes.length];
+	}
+
+	/**
+	 * Searches the levels in order for the specified item and updates them
+	 * according to the mode.
+	 *
+	 * @param element
+	 * @return the level that hit, or 0 if every level missed
+	 */
+	public int search(E element) {
+		for (int i = 0; i < levels.size(); i++) {
+			Cache<E> level = levels.get(i);
+			references[i]++;
+			if (level.contains(element)) {
+				hits[i]++;
+				if (mode == Mode.INCLUSIVE) {
+					level.moveToFront(element);
+					for (int j = i + 1; j < levels.size(); j++) {
+						addInclusive(j, element);
+					}
+				} else if (i == 0) {
+					level.moveToFront(element);
+				} else {
+					level.removeObject(element);
+					demote(mode == Mode.EXCLUSIVE ? 0 : i - 1, element);
+				}
+				return i + 1;
+			}
+			if (mode == Mode.INCLUSIVE) {
+				addInclusive(i, element);
+			}
+		}
+		if (mode != Mode.INCLUSIVE) {
+			demote(0, element);
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds an item to a level and passes that level's victim down, level after
+	 * level, until a level has room or the last level drops its victim.
+	 */
+	private void demote(int index, E element) {
+		E victim = element;
+		for (int i = index; i < levels.size() && victim != null; i++) {
+			victim = levels.get(i).addObject(victim);
+		}
+	}
+
+	/**
+	 * Adds an item to a level of an inclusive hierarchy. The level's victim is
+	 * removed from the levels above it, which must not hold what it doesn't.
+	 */
+	private void addInclusive(int index, E element) {
+		E victim = levels.get(index).addObject(element);
+		if (victim != null) {
+			for (int i = 0; i < index; i++) {
+				if (levels.get(i).contains(victim)) {
+					levels.get(i).removeObject(victim);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the Cache at the given level.
+	 *
+	 * @param level the level, starting at 1
+	 * @return the Cache at that level
+	 * @throws NoSuchLevelFoundException if the hierarchy has no such level
+	 */
+	public Cache<E> getLevel(int level) throws NoSuchLevelFoundException {
+		return levels.get(checkLevel(level));
+	}
+
+	/**
+	 * Returns the number of levels.
+	 */
+	public int getLevelCount() {
+		return levels.size();
+	}
+
+	/**
+	 * Returns the mode of the hierarchy.
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Returns the number of searches that reached the given level.
+	 *
+	 * @throws NoSuchLevelFoundException if the hierarchy has no such level
+	 */
+	public long getReferences(int level) throws NoSuchLevelFoundException {
+		return references[checkLevel(level)];
+	}
+
+	/**
+	 * Returns the number of searches that hit at the given level.
+	 *
+	 * @throws NoSuchLevelFoundException if the hierarchy has no such level
+	 */
+	public long getHits(int level) throws NoSuchLevelFoundException {
+		return hits[checkLevel(level)];
+	}
+
+	/**
+	 * Returns the hits at the given level over the references to it.
+	 *
+	 * @throws NoSuchLevelFoundException if the hierarchy has no such level
+	 */
+	public double getHitRatio(int level) throws NoSuchLevelFoundException {
+		int i = checkLevel(level);
+		return hits[i] / (double) references[i];
+	}
+
+	/**
+	 * Returns the number of searches, which all reference level 1.
+	 */
+	public long getGlobalReferences() {
+		return references[0];
+	}
+
+	/**
+	 * Returns the number of searches that hit at any level.
+	 */
+	public long getGlobalHits() {
+		long total = 0;
+		for (long levelHits : hits) {
+			total += levelHits;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the global hits over the number of searches.
+	 */
+	public double getGlobalHitRatio() {
+		return getGlobalHits() / (double) getGlobalReferences();
+	}
+
+	/**
+	 * Removes all data items from every level and resets the counts.
+	 */
+	public void clear() {
+		for (Cache<E> level : levels) {
+			level.clearCache();
+		}
+		hits = new long[levels.size()];
+		references = new long[levels.size()];
+	}
+
+	private int checkLevel(int level) throws NoSuchLevelFoundException {
+		if (level < 1 || level > levels.size()) {
+			throw new NoSuchLevelFoundException(
+					"Level " + level + " not found, the hierarchy has levels 1 to " + levels.size());
+		}
+		return level - 1;
+	}
+
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		for (int i = 0; i < levels.size(); i++) {
+			str.append("L" + (i + 1) + ": " + levels.get(i).toString() + "\n");
+		}
+		return str.toString();
+	}
+}
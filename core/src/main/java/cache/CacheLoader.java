@@ -0,0 +1,71 @@
+package cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Computes the values of a LoadingCache from a slower source, such as a
+ * database or a remote service. Only load must be written; the bulk and
+ * asynchronous methods fall back to it, and can be overridden when the source
+ * has a faster way to fetch many keys at once or is asynchronous itself.
+ *
+ * @author chloejohnson
+ *
+ * @param <K> class of keys
+ * @param <V> class of values
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+	/**
+	 * Computes the value of a key.
+	 *
+	 * @param key the key to load
+	 * @return the value, or null if the key has none
+	 * @throws Exception if the value can't be loaded
+	 */
+	public V load(K key) throws Exception;
+
+	/**
+	 * Computes the values of several keys in one call. By default each key is
+	 * loaded in turn.
+	 *
+	 * @param keys the keys to load
+	 * @return the values found; keys without a value may be left out
+	 * @throws Exception if the values can't be loaded
+	 */
+	public default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+		Map<K, V> values = new HashMap<K, V>();
+		for (K key : keys) {
+			V value = load(key);
+			if (value != null) {
+				values.put(key, value);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Starts computing the value of a key. By default load is run on the
+	 * executor.
+	 *
+	 * @param key      the key to load
+	 * @param executor runs the load
+	 * @return a future completed with the value, or null if the key has none
+	 */
+	public default CompletableFuture<V> asyncLoad(K key, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return load(key);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+}
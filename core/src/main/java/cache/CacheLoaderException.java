@@ -0,0 +1,22 @@
+package cache;
+
+/**
+ * Thrown by a LoadingCache when its CacheLoader fails with a checked
+ * exception, which is kept as the cause.
+ *
+ * @author chloejohnson
+ */
+public class CacheLoaderException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates an exception for a failed load.
+	 *
+	 * @param message describes the load that failed
+	 * @param cause   the exception the loader threw
+	 */
+	public CacheLoaderException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
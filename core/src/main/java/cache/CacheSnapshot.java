@@ -0,0 +1,335 @@
+package cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the contents of a cache to a file and loads them back, so that a
+ * cache restarted with the same workload starts warm instead of cold. A Cache
+ * is saved as its items, and an OffHeapCache as its keys and serialized
+ * values, in the order the eviction policy values them. Loading adds them so
+ * that the policy's order is restored; policies that also keep frequencies or
+ * ghost entries, such as lfu, arc and wtinylfu, start those over.
+ *
+ * A snapshot is a header (the magic number, the format version and whether
+ * values are included), the entries, each a length-prefixed key and value,
+ * and a trailer with the number of entries and a CRC32 of everything before
+ * it. It is written to a temporary file that replaces the old snapshot only
+ * when complete, and read back through a memory mapping, which is checksummed
+ * and decoded in full before the cache is changed. A snapshot that is
+ * missing, truncated, corrupt or of another version is not loaded, and the
+ * cache starts cold. Snapshots are limited to 2 GB, the most one mapping can
+ * hold.
+ *
+ * @author chloejohnson
+ */
+public final class CacheSnapshot {
+	/** "CSNP" */
+	private static final int MAGIC = 0x43534E50;
+	private static final int VERSION = 1;
+	private static final int KEYS_ONLY = 0;
+	private static final int WITH_VALUES = 1;
+	private static final int HEADER = 12;
+	private static final int TRAILER = 8;
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private CacheSnapshot() {
+	}
+
+	/**
+	 * Writes the items of a Cache to a file, replacing any snapshot there.
+	 * Items that have expired are left out.
+	 *
+	 * @param cache      the cache to save
+	 * @param serializer converts items to bytes
+	 * @param file       the snapshot file
+	 * @throws IOException if the file can't be written
+	 */
+	public static <E> void save(Cache<E> cache, Serializer<? super E> serializer, Path file) throws IOException {
+		try (Writer writer = new Writer(file, KEYS_ONLY)) {
+			for (E e : cache.getPolicy()) {
+				if (cache.contains(e)) {
+					writer.write(e, serializer);
+					writer.endEntry();
+				}
+			}
+			writer.commit();
+		}
+	}
+
+	/**
+	 * Adds the items of a snapshot to a Cache, most valued last, so they end up
+	 * in the order they were saved, ahead of any items already cached. If the
+	 * snapshot holds more items than fit, the least valued ones are evicted.
+	 * The items don't count as searches.
+	 *
+	 * @param cache      the cache to fill
+	 * @param serializer converts bytes to items
+	 * @param file       the snapshot file
+	 * @return true if the snapshot was loaded, false if it is missing or
+	 *         unusable and the cache is unchanged
+	 * @throws IOException if the file exists but can't be read
+	 */
+	public static <E> boolean load(Cache<E> cache, Serializer<? extends E> serializer, Path file)
+			throws IOException {
+		ByteBuffer snapshot = map(file, KEYS_ONLY);
+		if (snapshot == null) {
+			return false;
+		}
+		int[] entries = entries(snapshot, false);
+		if (entries == null) {
+			return false;
+		}
+		ArrayList<E> items = new ArrayList<E>(entries.length);
+		try {
+			for (int i = entries.length - 1; i >= 0; i--) {
+				items.add(serializer.read(field(snapshot, entries[i])));
+			}
+		} catch (RuntimeException e) {
+			// the checksum matched but the serializer can't read the bytes back
+			return false;
+		}
+		cache.putAll(items);
+		return true;
+	}
+
+	/**
+	 * Writes the keys and values of an OffHeapCache to a file, replacing any
+	 * snapshot there. Values are copied as they are stored, without being
+	 * deserialized.
+	 *
+	 * @param cache      the cache to save
+	 * @param serializer converts keys to bytes
+	 * @param file       the snapshot file
+	 * @throws IOException if the file can't be written
+	 */
+	public static <K, V> void save(OffHeapCache<K, V> cache, Serializer<? super K> serializer, Path file)
+			throws IOException {
+		try (Writer writer = new Writer(file, WITH_VALUES)) {
+			for (K key : cache.keys()) {
+				writer.write(key, serializer);
+				writer.write(cache.serializedValue(key));
+				writer.endEntry();
+			}
+			writer.commit();
+		}
+	}
+
+	/**
+	 * Adds the keys and values of a snapshot to an OffHeapCache, most valued
+	 * last, so they end up in the order they were saved, ahead of any pairs
+	 * already cached. If the snapshot holds more than fits, the least valued
+	 * pairs are evicted. A snapshot saved by a cache with larger slabs is
+	 * unusable if any of its values is too long for this cache's slabs.
+	 *
+	 * @param cache      the cache to fill
+	 * @param serializer converts bytes to keys
+	 * @param file       the snapshot file
+	 * @return true if the snapshot was loaded, false if it is missing or
+	 *         unusable and the cache is unchanged
+	 * @throws IOException if the file exists but can't be read
+	 */
+	public static <K, V> boolean load(OffHeapCache<K, V> cache, Serializer<? extends K> serializer, Path file)
+			throws IOException {
+		ByteBuffer snapshot = map(file, WITH_VALUES);
+		if (snapshot == null) {
+			return false;
+		}
+		int[] entries = entries(snapshot, true);
+		if (entries == null) {
+			return false;
+		}
+		ArrayList<K> keys = new ArrayList<K>(entries.length);
+		int[] values = new int[entries.length];
+		int maximumLength = cache.maximumValueLength();
+		try {
+			for (int i = entries.length - 1; i >= 0; i--) {
+				ByteBuffer key = field(snapshot, entries[i]);
+				int value = entries[i] + 4 + key.capacity();
+				if (snapshot.getInt(value) > maximumLength) {
+					return false;
+				}
+				keys.add(serializer.read(key));
+				values[keys.size() - 1] = value;
+			}
+		} catch (RuntimeException e) {
+			return false;
+		}
+		for (int i = 0; i < keys.size(); i++) {
+			cache.putSerialized(keys.get(i), field(snapshot, values[i]));
+		}
+		return true;
+	}
+
+	/**
+	 * Maps a snapshot and checks its header, trailer and checksum.
+	 *
+	 * @return the snapshot, or null if it is missing or unusable
+	 */
+	private static ByteBuffer map(Path file, int kind) throws IOException {
+		MappedByteBuffer snapshot;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER + TRAILER) {
+				return null;
+			}
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException(file + " is larger than the 2 GB a snapshot can be");
+			}
+			snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		if (snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION || snapshot.getInt(8) != kind) {
+			return null;
+		}
+		int end = snapshot.limit() - TRAILER;
+		CRC32 crc = new CRC32();
+		crc.update(snapshot.slice(0, end + 4));
+		if ((int) crc.getValue() != snapshot.getInt(end + 4)) {
+			return null;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Finds where each entry of a checksummed snapshot starts, most valued
+	 * first.
+	 *
+	 * @return the offsets of the entries, or null if they don't match the
+	 *         trailer
+	 */
+	private static int[] entries(ByteBuffer snapshot, boolean withValues) {
+		int end = snapshot.limit() - TRAILER;
+		int count = snapshot.getInt(end);
+		if (count < 0 || count > (end - HEADER) / (withValues ? 8 : 4)) {
+			return null;
+		}
+		int[] entries = new int[count];
+		int position = HEADER;
+		for (int i = 0; i < count; i++) {
+			entries[i] = position;
+			int fields = withValues ? 2 : 1;
+			for (int f = 0; f < fields; f++) {
+				if (position > end - 4) {
+					return null;
+				}
+				int length = snapshot.getInt(position);
+				if (length < 0 || length > end - position - 4) {
+					return null;
+				}
+				position += 4 + length;
+			}
+		}
+		return (position == end) ? entries : null;
+	}
+
+	/** Returns the bytes of the length-prefixed field at an offset */
+	private static ByteBuffer field(ByteBuffer snapshot, int offset) {
+		return snapshot.slice(offset + 4, snapshot.getInt(offset));
+	}
+
+	/**
+	 * Writes a snapshot to a temporary file through a buffer, checksumming
+	 * each buffer as it is written, and moves it over the snapshot file once
+	 * commit is called. A Writer closed without commit deletes the temporary
+	 * file.
+	 */
+	private static final class Writer implements AutoCloseable {
+		private final Path file;
+		private final Path temporary;
+		private final FileChannel channel;
+		private final CRC32 crc;
+		private ByteBuffer buffer;
+		private int count;
+		private boolean committed;
+
+		Writer(Path file, int kind) throws IOException {
+			this.file = file;
+			temporary = file.resolveSibling(file.getFileName() + ".tmp");
+			channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			crc = new CRC32();
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(kind);
+		}
+
+		/** Writes a length-prefixed field serialized from a key or item */
+		<T> void write(T t, Serializer<? super T> serializer) throws IOException {
+			int length = serializer.serializedSize(t);
+			reserve(4 + length);
+			buffer.putInt(length);
+			ByteBuffer field = buffer.slice(buffer.position(), length);
+			serializer.write(t, field);
+			buffer.position(buffer.position() + length);
+		}
+
+		/** Writes a length-prefixed field copied from a buffer */
+		void write(ByteBuffer bytes) throws IOException {
+			reserve(4 + bytes.remaining());
+			buffer.putInt(bytes.remaining());
+			buffer.put(bytes);
+		}
+
+		void endEntry() {
+			count++;
+		}
+
+		/** Writes the trailer, forces the file to disk and moves it into place */
+		void commit() throws IOException {
+			reserve(TRAILER);
+			buffer.putInt(count);
+			flush();
+			ByteBuffer checksum = ByteBuffer.allocate(4).putInt((int) crc.getValue());
+			checksum.flip();
+			while (checksum.hasRemaining()) {
+				channel.write(checksum);
+			}
+			channel.force(true);
+			channel.close();
+			try {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			committed = true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!committed) {
+				channel.close();
+				Files.deleteIfExists(temporary);
+			}
+		}
+
+		/** Makes room in the buffer, growing it for a field larger than the buffer */
+		private void reserve(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+				if (buffer.capacity() < bytes) {
+					buffer = ByteBuffer.allocateDirect(bytes);
+				}
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
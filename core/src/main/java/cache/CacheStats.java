@@ -0,0 +1,209 @@
+package cache;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a cache's counts, returned by the stats() method of
+ * a cache. The counts only grow, so the activity over an interval is the
+ * difference of the snapshots at its ends, given by minus().
+ *
+ * Search latencies are sampled, one search in StatsCounter.SAMPLE_INTERVAL,
+ * into buckets within 25% of the latencies they hold, so the percentiles are
+ * estimates.
+ *
+ * @author chloejohnson
+ */
+public final class CacheStats {
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long promotionCount;
+	private final long[] latencyCounts;
+
+	/**
+	 * Creates a snapshot of the given counts.
+	 *
+	 * @param hitCount       the number of searches that hit
+	 * @param missCount      the number of searches that missed
+	 * @param evictionCount  the number of items evicted
+	 * @param promotionCount the number of items the policy moved up
+	 * @param latencyCounts  the count of each LatencyHistogram bucket
+	 */
+	public CacheStats(long hitCount, long missCount, long evictionCount, long promotionCount,
+			long[] latencyCounts) {
+		if (latencyCounts.length != LatencyHistogram.BUCKETS) {
+			throw new IllegalArgumentException("Expected " + LatencyHistogram.BUCKETS + " latency buckets");
+		}
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.promotionCount = promotionCount;
+		this.latencyCounts = latencyCounts.clone();
+	}
+
+	/**
+	 * Returns the number of searches that found their item.
+	 */
+	public long hitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of searches that didn't find their item.
+	 */
+	public long missCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of searches.
+	 */
+	public long requestCount() {
+		return hitCount + missCount;
+	}
+
+	/**
+	 * Returns the number of items the eviction policy removed.
+	 */
+	public long evictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Returns the number of times the eviction policy moved an item up, such as
+	 * to the front of the recency list on a hit.
+	 */
+	public long promotionCount() {
+		return promotionCount;
+	}
+
+	/**
+	 * Returns the fraction of searches that hit, or 1 if there were none.
+	 */
+	public double hitRatio() {
+		long requests = requestCount();
+		return (requests == 0) ? 1 : hitCount / (double) requests;
+	}
+
+	/**
+	 * Returns the fraction of searches that missed, or 0 if there were none.
+	 */
+	public double missRatio() {
+		long requests = requestCount();
+		return (requests == 0) ? 0 : missCount / (double) requests;
+	}
+
+	/**
+	 * Returns the number of searches whose latency was sampled.
+	 */
+	public long latencySamples() {
+		long samples = 0;
+		for (long count : latencyCounts) {
+			samples += count;
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns an estimate of a latency percentile: the upper bound of the
+	 * bucket holding it.
+	 *
+	 * @param percentile between 0 and 100, for example 99.9
+	 * @return the latency in nanoseconds, or 0 if nothing was sampled
+	 */
+	public long latencyPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile must be between 0 and 100");
+		}
+		long samples = latencySamples();
+		if (samples == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(samples * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < latencyCounts.length; i++) {
+			seen += latencyCounts[i];
+			if (seen >= rank) {
+				return LatencyHistogram.upperBound(i);
+			}
+		}
+		return LatencyHistogram.upperBound(latencyCounts.length - 1);
+	}
+
+	/**
+	 * Returns an estimate of the mean latency, taking each sample at the middle
+	 * of its bucket.
+	 *
+	 * @return the mean latency in nanoseconds, or 0 if nothing was sampled
+	 */
+	public double meanLatency() {
+		long samples = latencySamples();
+		if (samples == 0) {
+			return 0;
+		}
+		double total = 0;
+		for (int i = 0; i < latencyCounts.length; i++) {
+			if (latencyCounts[i] > 0) {
+				double middle = LatencyHistogram.lowerBound(i) / 2.0 + LatencyHistogram.upperBound(i) / 2.0;
+				total += latencyCounts[i] * middle;
+			}
+		}
+		return total / samples;
+	}
+
+	/**
+	 * Returns the counts since an earlier snapshot of the same cache.
+	 *
+	 * @param earlier the snapshot at the start of the interval
+	 * @return the difference of the counts
+	 */
+	public CacheStats minus(CacheStats earlier) {
+		long[] latencies = new long[latencyCounts.length];
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = Math.max(0, latencyCounts[i] - earlier.latencyCounts[i]);
+		}
+		return new CacheStats(Math.max(0, hitCount - earlier.hitCount), Math.max(0, missCount - earlier.missCount),
+				Math.max(0, evictionCount - earlier.evictionCount),
+				Math.max(0, promotionCount - earlier.promotionCount), latencies);
+	}
+
+	/**
+	 * Returns the sum of two snapshots, such as those of two caches.
+	 *
+	 * @param other the other snapshot
+	 * @return the sum of the counts
+	 */
+	public CacheStats plus(CacheStats other) {
+		long[] latencies = new long[latencyCounts.length];
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = latencyCounts[i] + other.latencyCounts[i];
+		}
+		return new CacheStats(hitCount + other.hitCount, missCount + other.missCount,
+				evictionCount + other.evictionCount, promotionCount + other.promotionCount, latencies);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof CacheStats)) {
+			return false;
+		}
+		CacheStats other = (CacheStats) o;
+		return hitCount == other.hitCount && missCount == other.missCount && evictionCount == other.evictionCount
+				&& promotionCount == other.promotionCount && Arrays.equals(latencyCounts, other.latencyCounts);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = Long.hashCode(hitCount);
+		h = 31 * h + Long.hashCode(missCount);
+		h = 31 * h + Long.hashCode(evictionCount);
+		h = 31 * h + Long.hashCode(promotionCount);
+		return 31 * h + Arrays.hashCode(latencyCounts);
+	}
+
+	public String toString() {
+		return "CacheStats[hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+				+ ", promotions=" + promotionCount + ", hitRatio=" + hitRatio() + ", p50=" + latencyPercentile(50)
+				+ "ns, p99=" + latencyPercentile(99) + "ns]";
+	}
+}
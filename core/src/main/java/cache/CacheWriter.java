@@ -0,0 +1,67 @@
+package cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Receives the changes made to a LoadingCache so that a backing store, such
+ * as a database, can be kept up to date. Passing the store's writer to the
+ * cache writes through: each change reaches the store before the cache
+ * returns. Wrapping it in a WriteBehindWriter writes behind: changes are
+ * queued, repeated changes to a key are coalesced, and the rest reach the
+ * store later in batches.
+ *
+ * Only write and delete must be written; the bulk methods fall back to them,
+ * and can be overridden when the store has a faster way to apply many changes
+ * at once.
+ *
+ * @author chloejohnson
+ *
+ * @param <K> class of keys
+ * @param <V> class of values
+ */
+public interface CacheWriter<K, V> {
+
+	/**
+	 * Stores the value of a key, replacing any value it had.
+	 *
+	 * @param key   the key
+	 * @param value the value
+	 * @throws Exception if the value can't be stored
+	 */
+	public void write(K key, V value) throws Exception;
+
+	/**
+	 * Removes a key and its value from the store.
+	 *
+	 * @param key the key
+	 * @throws Exception if the key can't be removed
+	 */
+	public void delete(K key) throws Exception;
+
+	/**
+	 * Stores the values of several keys in one call. By default each key is
+	 * written in turn.
+	 *
+	 * @param entries the keys and their values
+	 * @throws Exception if the values can't be stored
+	 */
+	public default void writeAll(Map<? extends K, ? extends V> entries) throws Exception {
+		for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+			write(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Removes several keys in one call. By default each key is deleted in
+	 * turn.
+	 *
+	 * @param keys the keys
+	 * @throws Exception if the keys can't be removed
+	 */
+	public default void deleteAll(Collection<? extends K> keys) throws Exception {
+		for (K key : keys) {
+			delete(key);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package cache;
+
+/**
+ * Thrown by a LoadingCache when its CacheWriter fails with a checked
+ * exception, which is kept as the cause.
+ *
+ * @author chloejohnson
+ */
+public class CacheWriterException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates an exception for a failed write.
+	 *
+	 * @param message describes the write that failed
+	 * @param cause   the exception the writer threw
+	 */
+	public CacheWriterException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,137 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * CLOCK (second chance) replacement. The items sit on a circular list swept by
+ * a hand. A hit only sets the item's reference bit, so hits never relink
+ * anything. To evict, the hand clears set bits as it passes and stops at the
+ * first item whose bit is clear. Each bit is cleared at most once per hit, so
+ * eviction is amortized constant time. New items are placed just behind the
+ * hand, where they are examined last.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class ClockPolicy<E> implements EvictionPolicy<E> {
+	private HashMap<E, Entry<E>> index;
+	private Entry<E> hand;
+
+	/** Creates an empty policy */
+	public ClockPolicy() {
+		index = new HashMap<E, Entry<E>>();
+		hand = null;
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return index.containsKey(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		Entry<E> entry = index.get(e);
+		if (entry == null) {
+			return false;
+		}
+		entry.referenced = true;
+		return true;
+	}
+
+	@Override
+	public void add(E e) {
+		Entry<E> entry = new Entry<E>(e);
+		index.put(e, entry);
+		if (hand == null) {
+			entry.prev = entry.next = entry;
+			hand = entry;
+		} else {
+			entry.next = hand;
+			entry.prev = hand.prev;
+			hand.prev.next = entry;
+			hand.prev = entry;
+		}
+	}
+
+	@Override
+	public E evict() {
+		if (hand == null) {
+			throw new NoSuchElementException();
+		}
+		while (hand.referenced) {
+			hand.referenced = false;
+			hand = hand.next;
+		}
+		Entry<E> victim = hand;
+		index.remove(victim.element);
+		unlink(victim);
+		return victim.element;
+	}
+
+	@Override
+	public void remove(E e) {
+		Entry<E> entry = index.remove(e);
+		if (entry == null) {
+			throw new NoSuchElementException();
+		}
+		unlink(entry);
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public void clear() {
+		index.clear();
+		hand = null;
+	}
+
+	/**
+	 * Iterates from the item the hand will reach last back towards the hand,
+	 * which is the reverse of insertion order for items that were never hit.
+	 * The items are copied first, so the iterator doesn't support removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		ArrayList<E> items = new ArrayList<E>(index.size());
+		if (hand != null) {
+			Entry<E> current = hand.prev;
+			do {
+				items.add(current.element);
+				current = current.prev;
+			} while (current != hand.prev);
+		}
+		return Collections.unmodifiableList(items).iterator();
+	}
+
+	private void unlink(Entry<E> entry) {
+		if (entry.next == entry) {
+			hand = null;
+		} else {
+			entry.prev.next = entry.next;
+			entry.next.prev = entry.prev;
+			if (hand == entry) {
+				hand = entry.next;
+			}
+		}
+		entry.prev = entry.next = null;
+	}
+
+	/** An item on the clock and its reference bit */
+	private static class Entry<E> {
+		private final E element;
+		private boolean referenced;
+		private Entry<E> prev, next;
+
+		private Entry(E element) {
+			this.element = element;
+		}
+	}
+}
@@ -0,0 +1,521 @@
+package cache;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe version of Cache that can be shared between threads. The key
+ * space is partitioned into segments, each an independently locked LRU cache
+ * holding an equal share of the total size, so threads working on different
+ * segments never contend.
+ *
+ * A hit never takes a lock. Each segment keeps a concurrent set of its items
+ * for lookups and records hits in a small ring buffer; the buffered hits are
+ * replayed against the segment's recency list in batches by whichever thread
+ * next holds the segment lock. If the buffer is full because the lock is busy,
+ * the hit is still counted but its promotion is dropped, so recency within a
+ * segment is LRU order up to the promotions lost under heavy contention.
+ *
+ * All segments record into one ConcurrentStatsCounter, whose counters are
+ * striped, so stats() can stay on without becoming a point of contention.
+ * Promotions are counted when they are applied, so promotions dropped from a
+ * full buffer show up as fewer promotions than hits.
+ *
+ * searchAll, getAll and putAll work on a batch of items. The items are grouped
+ * by segment and each segment is locked once for all of its items, which are
+ * promoted or added directly, without the read buffer, and then evicted
+ * together, so an item added early in a batch is still found later in it. The
+ * counts are recorded once per batch. Batches are not timed.
+ *
+ * An eviction listener can be given to learn which items are evicted, for
+ * example to drop data kept elsewhere for them.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class ConcurrentCache<E> {
+
+	// what a batch does with each of its items
+	private static final int SEARCH = 0;
+	private static final int GET = 1;
+	private static final int PUT = 2;
+
+	private final Segment<E>[] segments;
+	private final int segmentShift;
+	private final int size;
+	private final StatsCounter stats;
+
+	/*
+	 * Creates a new ConcurrentCache of a specified size with a segment count
+	 * chosen from the number of available processors.
+	 */
+	public ConcurrentCache(int size) {
+		this(size, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/*
+	 * Creates a new ConcurrentCache of a specified size split into roughly the
+	 * given number of segments. The segment count is rounded to a power of two
+	 * and never exceeds the size, so every segment can hold at least one item.
+	 */
+	public ConcurrentCache(int size, int concurrencyLevel) {
+		this(size, concurrencyLevel, e -> {
+		});
+	}
+
+	/*
+	 * Creates a new ConcurrentCache of a specified size split into roughly the
+	 * given number of segments that passes every item it evicts to the listener.
+	 * The listener runs while the item's segment is locked, so it must be quick
+	 * and must not call back into this cache.
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentCache(int size, int concurrencyLevel, Consumer<? super E> evictionListener) {
+		if (size < 1 || concurrencyLevel < 1) {
+			throw new IllegalArgumentException("Size and concurrency level must be positive");
+		}
+		int count = 1;
+		while (count < concurrencyLevel && count * 2 <= size) {
+			count <<= 1;
+		}
+		this.size = size;
+		stats = new ConcurrentStatsCounter();
+		segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+		segments = (Segment<E>[]) new Segment<?>[count];
+		for (int i = 0; i < count; i++) {
+			segments[i] = new Segment<E>(size / count + (i < size % count ? 1 : 0), stats, evictionListener);
+		}
+	}
+
+	/**
+	 * Searches the cache for the specified item. If the item isn't found, it's
+	 * added to the front of its segment.
+	 *
+	 * @param element
+	 * @return 1 on a hit, 0 on a miss
+	 */
+	public int search(E element) {
+		long start = stats.startTimer();
+		int hit = segmentFor(element).search(element);
+		stats.stopTimer(start);
+		return hit;
+	}
+
+	/**
+	 * Adds a data item to the front of its segment. If the item is already
+	 * cached it is only moved to the front.
+	 *
+	 * @param e
+	 */
+	public void addObject(E e) {
+		segmentFor(e).add(e);
+	}
+
+	/**
+	 * Searches the cache for each item of a batch, adding the items that aren't
+	 * found, as search does for one item.
+	 *
+	 * @param elements the items to search for
+	 * @return which items were found
+	 */
+	public BatchResult searchAll(E[] elements) {
+		return batch(elements, SEARCH);
+	}
+
+	/**
+	 * Searches the cache for each item of a batch, adding the items that aren't
+	 * found, as search does for one item.
+	 *
+	 * @param elements the items to search for
+	 * @return which items were found
+	 */
+	public BatchResult searchAll(Collection<? extends E> elements) {
+		return batch(elements.toArray(), SEARCH);
+	}
+
+	/**
+	 * Looks up each item of a batch, moving the items that are cached to the
+	 * front of their segments. Items that aren't cached are not added, but
+	 * count as misses.
+	 *
+	 * @param elements the items to look up
+	 * @return which items were found
+	 */
+	public BatchResult getAll(E[] elements) {
+		return batch(elements, GET);
+	}
+
+	/**
+	 * Looks up each item of a batch, moving the items that are cached to the
+	 * front of their segments. Items that aren't cached are not added, but
+	 * count as misses.
+	 *
+	 * @param elements the items to look up
+	 * @return which items were found
+	 */
+	public BatchResult getAll(Collection<? extends E> elements) {
+		return batch(elements.toArray(), GET);
+	}
+
+	/**
+	 * Adds each item of a batch to the front of its segment, as addObject does
+	 * for one item. Does not count as searches.
+	 *
+	 * @param elements the items to add
+	 * @return which items were already cached
+	 */
+	public BatchResult putAll(E[] elements) {
+		return batch(elements, PUT);
+	}
+
+	/**
+	 * Adds each item of a batch to the front of its segment, as addObject does
+	 * for one item. Does not count as searches.
+	 *
+	 * @param elements the items to add
+	 * @return which items were already cached
+	 */
+	public BatchResult putAll(Collection<? extends E> elements) {
+		return batch(elements.toArray(), PUT);
+	}
+
+	/**
+	 * Removes the specified item from the Cache.
+	 *
+	 * @return E
+	 * @throws NoSuchElementException if the item isn't cached
+	 */
+	public E removeObject(E e) {
+		return segmentFor(e).remove(e);
+	}
+
+	/**
+	 * Moves the data item to the front of its segment.
+	 *
+	 * @throws NoSuchElementException if the item isn't cached
+	 */
+	public void moveToFront(E e) {
+		segmentFor(e).moveToFront(e);
+	}
+
+	/**
+	 * Returns true if the item is cached. Does not affect recency.
+	 */
+	public boolean contains(E e) {
+		return segmentFor(e).members.contains(e);
+	}
+
+	/**
+	 * Returns the number of cached items.
+	 */
+	public int size() {
+		int count = 0;
+		for (Segment<E> segment : segments) {
+			count += segment.members.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the maximum number of cached items.
+	 */
+	public int capacity() {
+		return size;
+	}
+
+	/**
+	 * Returns a snapshot of the counts recorded since the cache was created.
+	 */
+	public CacheStats stats() {
+		return stats.snapshot();
+	}
+
+	/**
+	 * Removes all data items from the cache. The counts are kept.
+	 */
+	public void clearCache() {
+		for (Segment<E> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Lists the items of every segment, most recently used first within each
+	 * segment.
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		for (Segment<E> segment : segments) {
+			str.append(segment.toString());
+		}
+		return str.toString();
+	}
+
+	/**
+	 * Runs a batch. The positions of the items are sorted by segment with a
+	 * counting sort, keeping their order within each segment, and then each
+	 * segment handles its share under one lock.
+	 */
+	private BatchResult batch(Object[] elements, int mode) {
+		int[] segmentOf = new int[elements.length];
+		int[] start = new int[segments.length + 1];
+		for (int i = 0; i < elements.length; i++) {
+			segmentOf[i] = segmentIndex(elements[i]);
+			start[segmentOf[i] + 1]++;
+		}
+		for (int s = 0; s < segments.length; s++) {
+			start[s + 1] += start[s];
+		}
+		int[] order = new int[elements.length];
+		int[] next = start.clone();
+		for (int i = 0; i < elements.length; i++) {
+			order[next[segmentOf[i]]++] = i;
+		}
+		BitSet hits = new BitSet(elements.length);
+		int found = 0;
+		for (int s = 0; s < segments.length; s++) {
+			if (start[s] < start[s + 1]) {
+				found += segments[s].batch(elements, order, start[s], start[s + 1], mode, hits);
+			}
+		}
+		if (mode != PUT) {
+			stats.recordSearches(found, elements.length - found);
+		}
+		return new BatchResult(hits, elements.length);
+	}
+
+	private Segment<E> segmentFor(E e) {
+		return segments[segmentIndex(e)];
+	}
+
+	private int segmentIndex(Object e) {
+		// spread the hash with a Fibonacci multiply and select by the high bits,
+		// which the segment's own hash table doesn't use for its buckets
+		int h = e.hashCode() * 0x9E3779B9;
+		return segmentShift == 32 ? 0 : h >>> segmentShift;
+	}
+
+	/**
+	 * A segment is an LRU cache guarded by its own lock. Hits are written to a
+	 * lossy ring buffer and drained in batches while the lock is held.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Segment<E> extends ReentrantLock {
+		private static final int BUFFER_SIZE = 64;
+		private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+		private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 4;
+
+		private final int capacity;
+		private final Set<E> members;
+		private final LRUList<E> recency;
+		private final StatsCounter stats;
+		private final Consumer<? super E> evictionListener;
+
+		private final AtomicReferenceArray<E> readBuffer;
+		private final AtomicLong writeCounter;
+		private volatile long readCounter;
+
+		Segment(int capacity, StatsCounter stats, Consumer<? super E> evictionListener) {
+			this.capacity = capacity;
+			this.stats = stats;
+			this.evictionListener = evictionListener;
+			members = ConcurrentHashMap.newKeySet(capacity);
+			recency = new LRUList<E>(capacity);
+			readBuffer = new AtomicReferenceArray<E>(BUFFER_SIZE);
+			writeCounter = new AtomicLong();
+		}
+
+		int search(E element) {
+			if (members.contains(element)) {
+				stats.recordHit();
+				recordRead(element);
+				return 1;
+			}
+			lock();
+			try {
+				drainReadBuffer();
+				if (recency.moveToFront(element)) {
+					// another thread added it since the lock-free check
+					stats.recordHit();
+					stats.recordPromotion();
+					return 1;
+				}
+				stats.recordMiss();
+				insert(element);
+				return 0;
+			} finally {
+				unlock();
+			}
+		}
+
+		void add(E element) {
+			lock();
+			try {
+				drainReadBuffer();
+				if (recency.moveToFront(element)) {
+					stats.recordPromotion();
+				} else {
+					insert(element);
+				}
+			} finally {
+				unlock();
+			}
+		}
+
+		E remove(E element) {
+			lock();
+			try {
+				drainReadBuffer();
+				recency.remove(element);
+				members.remove(element);
+				return element;
+			} finally {
+				unlock();
+			}
+		}
+
+		void moveToFront(E element) {
+			lock();
+			try {
+				drainReadBuffer();
+				if (!recency.moveToFront(element)) {
+					throw new NoSuchElementException();
+				}
+				stats.recordPromotion();
+			} finally {
+				unlock();
+			}
+		}
+
+		void clear() {
+			lock();
+			try {
+				drainReadBuffer();
+				recency.clear();
+				members.clear();
+			} finally {
+				unlock();
+			}
+		}
+
+		/**
+		 * Handles the items of a batch at the given positions, promoting the
+		 * cached ones, adding the others unless the batch is a GET, and then
+		 * evicting what no longer fits.
+		 *
+		 * @return the number of items found
+		 */
+		@SuppressWarnings("unchecked")
+		int batch(Object[] elements, int[] order, int from, int to, int mode, BitSet hits) {
+			int found = 0;
+			int evicted = 0;
+			lock();
+			try {
+				drainReadBuffer();
+				for (int i = from; i < to; i++) {
+					E element = (E) elements[order[i]];
+					if (recency.moveToFront(element)) {
+						hits.set(order[i]);
+						found++;
+					} else if (mode != GET) {
+						recency.addToFront(element);
+						members.add(element);
+					}
+				}
+				while (recency.size() > capacity) {
+					E victim = recency.removeLast();
+					members.remove(victim);
+					evicted++;
+					evictionListener.accept(victim);
+				}
+			} finally {
+				unlock();
+			}
+			if (found > 0) {
+				stats.recordPromotions(found);
+			}
+			if (evicted > 0) {
+				stats.recordEvictions(evicted);
+			}
+			return found;
+		}
+
+		/** Adds a new item, evicting the least recently used one if full. */
+		private void insert(E element) {
+			recency.addToFront(element);
+			members.add(element);
+			if (recency.size() > capacity) {
+				E victim = recency.removeLast();
+				members.remove(victim);
+				stats.recordEviction();
+				evictionListener.accept(victim);
+			}
+		}
+
+		/**
+		 * Records a hit without locking. The hit is dropped if the buffer is
+		 * full; once enough hits are pending a drain is attempted if the lock is
+		 * free.
+		 */
+		private void recordRead(E element) {
+			long write = writeCounter.get();
+			long pending = write - readCounter;
+			if (pending < BUFFER_SIZE && writeCounter.compareAndSet(write, write + 1)) {
+				readBuffer.lazySet((int) (write & BUFFER_MASK), element);
+				pending++;
+			}
+			if (pending >= DRAIN_THRESHOLD && tryLock()) {
+				try {
+					drainReadBuffer();
+				} finally {
+					unlock();
+				}
+			}
+		}
+
+		/**
+		 * Replays buffered hits in the order they were recorded. Must be called
+		 * with the lock held. Stops at a slot that has been claimed but not yet
+		 * written; it is picked up by the next drain.
+		 */
+		private void drainReadBuffer() {
+			long read = readCounter;
+			long write = writeCounter.get();
+			int promoted = 0;
+			while (read < write) {
+				int slot = (int) (read & BUFFER_MASK);
+				E element = readBuffer.get(slot);
+				if (element == null) {
+					break;
+				}
+				readBuffer.lazySet(slot, null);
+				if (recency.moveToFront(element)) {
+					promoted++;
+				}
+				read++;
+			}
+			readCounter = read;
+			if (promoted > 0) {
+				stats.recordPromotions(promoted);
+			}
+		}
+
+		public String toString() {
+			lock();
+			try {
+				drainReadBuffer();
+				return recency.toString();
+			} finally {
+				unlock();
+			}
+		}
+	}
+}
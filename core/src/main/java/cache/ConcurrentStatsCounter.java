@@ -0,0 +1,96 @@
+package cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A StatsCounter that many threads can record into at once. Every count is a
+ * LongAdder, which threads update without contending, and the searches to
+ * time are chosen with ThreadLocalRandom, so no state is shared between the
+ * threads except the striped counters.
+ *
+ * @author chloejohnson
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder evictions;
+	private final LongAdder promotions;
+	private final LatencyHistogram latencies;
+
+	/** Creates a counter with every count at zero */
+	public ConcurrentStatsCounter() {
+		hits = new LongAdder();
+		misses = new LongAdder();
+		evictions = new LongAdder();
+		promotions = new LongAdder();
+		latencies = new LatencyHistogram();
+	}
+
+	@Override
+	public void recordHit() {
+		hits.increment();
+	}
+
+	@Override
+	public void recordMiss() {
+		misses.increment();
+	}
+
+	@Override
+	public void recordSearches(int hits, int misses) {
+		this.hits.add(hits);
+		this.misses.add(misses);
+	}
+
+	@Override
+	public void recordEviction() {
+		evictions.increment();
+	}
+
+	@Override
+	public void recordEvictions(int count) {
+		evictions.add(count);
+	}
+
+	@Override
+	public void recordPromotion() {
+		promotions.increment();
+	}
+
+	@Override
+	public void recordPromotions(int count) {
+		promotions.add(count);
+	}
+
+	@Override
+	public long startTimer() {
+		if ((ThreadLocalRandom.current().nextInt() & (SAMPLE_INTERVAL - 1)) != 0) {
+			return 0;
+		}
+		long start = System.nanoTime();
+		// 0 means untimed, so a clock reading of 0 is moved by a nanosecond
+		return (start == 0) ? 1 : start;
+	}
+
+	@Override
+	public void stopTimer(long start) {
+		if (start != 0) {
+			latencies.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public CacheStats snapshot() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), promotions.sum(), latencies.counts());
+	}
+
+	@Override
+	public void reset() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+		promotions.reset();
+		latencies.reset();
+	}
+}
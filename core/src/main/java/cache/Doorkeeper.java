@@ -0,0 +1,92 @@
+package cache;
+
+/**
+ * A Bloom filter that remembers which items have been seen at least once. An
+ * item sets three bits of a bit array, chosen by hashing it, and is reported
+ * as seen if all three are set, so the filter can mistake a new item for one
+ * it has seen but never the other way round. With eight bits per expected
+ * item it is wrong about one new item in thirty.
+ *
+ * In front of a FrequencySketch it absorbs the first occurrence of each item,
+ * so the one-hit wonders that make up much of most traces never reach the
+ * sketch's counters. It is cleared whenever the sketch is aged.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of the items remembered
+ */
+public class Doorkeeper<E> {
+	private static final int HASHES = 3;
+
+	private final long[] bits;
+	private final int bitMask;
+
+	/**
+	 * Creates an empty filter sized for the given number of items, using eight
+	 * bits, or one byte, per item.
+	 *
+	 * @param expectedItems the number of items the filter should remember
+	 */
+	public Doorkeeper(int expectedItems) {
+		int items = Math.min(Math.max(expectedItems, 64), 1 << 26);
+		int length = Integer.highestOneBit(items - 1) << 1;
+		// eight bits per item, sixty-four to a long
+		bits = new long[length >>> 3];
+		bitMask = (length << 3) - 1;
+	}
+
+	/**
+	 * Returns true if the item may have been seen, false if it certainly
+	 * hasn't.
+	 *
+	 * @param e the item
+	 * @return true if the item may have been seen
+	 */
+	public boolean mightContain(E e) {
+		long hash = hash(e);
+		for (int i = 0; i < HASHES; i++) {
+			int bit = indexOf(hash, i);
+			if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Remembers the item.
+	 *
+	 * @param e the item
+	 * @return true if the item wasn't seen before, false if it may have been
+	 */
+	public boolean put(E e) {
+		long hash = hash(e);
+		boolean added = false;
+		for (int i = 0; i < HASHES; i++) {
+			int bit = indexOf(hash, i);
+			long word = bits[bit >>> 6];
+			bits[bit >>> 6] = word | (1L << bit);
+			added |= (word & (1L << bit)) == 0;
+		}
+		return added;
+	}
+
+	/**
+	 * Forgets every item.
+	 */
+	public void clear() {
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = 0L;
+		}
+	}
+
+	/** Derives the i-th bit from the two halves of the hash, as double hashing does */
+	private int indexOf(long hash, int i) {
+		return ((int) hash + i * (int) (hash >>> 32)) & bitMask;
+	}
+
+	private static long hash(Object e) {
+		long h = e.hashCode() * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+}
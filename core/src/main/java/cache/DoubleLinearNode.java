@@ -0,0 +1,97 @@
+package cache;
+
+/**
+ * DoubleLinearNode represents a node in a doubly linked list. In addition to
+ * the next reference of LinearNode it keeps a reference to the previous node.
+ *
+ * @author chloejohnson
+ */
+public class DoubleLinearNode<E> {
+	private DoubleLinearNode<E> next;
+	private DoubleLinearNode<E> previous;
+	private E element;
+
+	/**
+  	 * Creates an empty node.
+  	 */
+	public DoubleLinearNode() {
+		next = null;
+		previous = null;
+		element = null;
+	}
+
+	/**
+  	 * Creates a node storing the specified element.
+ 	 *
+  	 * @param elem
+  	 *            the element to be stored within the new node
+  	 */
+	public DoubleLinearNode(E elem) {
+		next = null;
+		previous = null;
+		element = elem;
+	}
+
+	/**
+ 	 * Returns the node that follows this one.
+  	 *
+  	 * @return the node that follows the current one
+  	 */
+	public DoubleLinearNode<E> getNext() {
+		return next;
+	}
+
+	/**
+ 	 * Sets the node that follows this one.
+ 	 *
+ 	 * @param node
+ 	 *            the node to be set to follow the current one
+ 	 */
+	public void setNext(DoubleLinearNode<E> node) {
+		next = node;
+	}
+
+	/**
+ 	 * Returns the node that precedes this one.
+  	 *
+  	 * @return the node that precedes the current one
+  	 */
+	public DoubleLinearNode<E> getPrevious() {
+		return previous;
+	}
+
+	/**
+ 	 * Sets the node that precedes this one.
+ 	 *
+ 	 * @param node
+ 	 *            the node to be set to precede the current one
+ 	 */
+	public void setPrevious(DoubleLinearNode<E> node) {
+		previous = node;
+	}
+
+	/**
+ 	 * Returns the element stored in this node.
+ 	 *
+ 	 * @return the element stored in this node
+ 	 */
+	public E getElement() {
+		return element;
+	}
+
+	/**
+ 	 * Sets the element stored in this node.
+  	 *
+  	 * @param elem
+  	 *            the element to be stored in this node
+  	 */
+	public void setElement(E elem) {
+		element = elem;
+	}
+
+	@Override
+	public String toString() {
+		return "Element: " + element.toString() + " Has next: " + (next != null) + " Has previous: "
+				+ (previous != null);
+	}
+}
@@ -0,0 +1,133 @@
+package cache;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Interface for the replacement policy a Cache delegates to. A policy tracks
+ * which items are resident and decides which one to evict; the Cache decides
+ * when to evict by comparing the policy's size to its own capacity. New items
+ * are always added before the eviction they cause, so a policy briefly holds
+ * one item more than the capacity it was created for.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of objects stored in the cache
+ */
+public interface EvictionPolicy<E> extends Iterable<E> {
+
+	/**
+	 * Returns true if the item is resident. Does not count as an access.
+	 *
+	 * @param e the item being sought
+	 * @return true if the item is resident
+	 */
+	public boolean contains(E e);
+
+	/**
+	 * Records a hit on a resident item.
+	 *
+	 * @param e the item that was accessed
+	 * @return true if the item is resident, false if it isn't (nothing changes)
+	 */
+	public boolean recordAccess(E e);
+
+	/**
+	 * Adds an item that is not resident. The Cache calls evict() afterwards if
+	 * the policy has grown past capacity.
+	 *
+	 * @param e the item to be added
+	 */
+	public void add(E e);
+
+	/**
+	 * Chooses a victim, removes it and returns it.
+	 *
+	 * @return the evicted item
+	 * @throws NoSuchElementException if no item is resident
+	 */
+	public E evict();
+
+	/**
+	 * Returns the item evict() would remove if it were called now, without
+	 * removing it, so a Cache can weigh an item it might add against the item
+	 * it would push out. Policies that can't tell without changing their state,
+	 * because they sample or sweep to choose, return null.
+	 *
+	 * @return the next victim, or null if the policy can't tell or is empty
+	 */
+	public default E victim() {
+		return null;
+	}
+
+	/**
+	 * Returns true if several items may be added before the evictions they
+	 * cause, as a Cache does when it evicts once at the end of a batch.
+	 * Policies that carry state from an add to the evict that follows it
+	 * return false, and a Cache evicts after each of their adds instead.
+	 *
+	 * @return true if eviction may be deferred to the end of a batch
+	 */
+	public default boolean defersEviction() {
+		return true;
+	}
+
+	/**
+	 * Removes a resident item without treating it as an eviction.
+	 *
+	 * @param e the item to be removed
+	 * @throws NoSuchElementException if the item isn't resident
+	 */
+	public void remove(E e);
+
+	/**
+	 * Returns the number of resident items.
+	 *
+	 * @return the number of resident items
+	 */
+	public int size();
+
+	/**
+	 * Removes all items and forgets any history.
+	 */
+	public void clear();
+
+	/**
+	 * Returns an iterator over the resident items, starting with the item the
+	 * policy values most (the most recently used item for LRU).
+	 *
+	 * @return an Iterator over the resident items
+	 */
+	public Iterator<E> iterator();
+
+	/**
+	 * Creates a policy by name for a cache of the given capacity. The names are
+	 * lru, lfu, clock, 2q, arc, wtinylfu and sampled.
+	 *
+	 * @param name     the name of the policy, ignoring case
+	 * @param capacity the capacity of the cache the policy is for
+	 * @return a new, empty policy
+	 * @throws IllegalArgumentException if the name is unknown
+	 */
+	public static <E> EvictionPolicy<E> create(String name, int capacity) {
+		switch (name.toLowerCase()) {
+		case "lru":
+			return new LRUPolicy<E>(capacity);
+		case "lfu":
+			return new LFUPolicy<E>();
+		case "clock":
+			return new ClockPolicy<E>();
+		case "2q":
+			return new TwoQueuePolicy<E>(capacity);
+		case "arc":
+			return new ARCPolicy<E>(capacity);
+		case "wtinylfu":
+			return new WTinyLFUPolicy<E>(capacity);
+		case "sampled":
+			return new SampledLRUPolicy<E>(capacity);
+		default:
+			throw new IllegalArgumentException("Unknown eviction policy " + name
+					+ " (expected lru, lfu, clock, 2q, arc, wtinylfu or sampled)");
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A backing store kept in a local file, for trying out a LoadingCache with a
+ * CacheWriter without a database. It is both the CacheLoader and the
+ * CacheWriter of the cache.
+ *
+ * The file is a log: each write or delete appends a record, and the records
+ * of one writeAll or deleteAll are appended together and forced to disk once,
+ * so a batch costs one sync however many keys it holds. Opening the store
+ * replays the log into a map in memory, which loads are served from. A record
+ * cut short by a crash is dropped. compact() rewrites the log with only the
+ * live keys.
+ *
+ * The methods are synchronized, so a store can be shared by a cache and a
+ * WriteBehindWriter's thread.
+ *
+ * @author chloejohnson
+ *
+ * @param <K> class of keys
+ * @param <V> class of values
+ */
+public class FileCacheStore<K, V> implements CacheLoader<K, V>, CacheWriter<K, V>, Closeable {
+	private static final byte WRITE = 1;
+	private static final byte DELETE = 2;
+
+	private final Path file;
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final HashMap<K, V> values;
+	private FileChannel channel;
+	private long records;
+	private long syncs;
+
+	/**
+	 * Opens a store, creating its file if it doesn't exist and replaying it if
+	 * it does.
+	 *
+	 * @param file            the log file
+	 * @param keySerializer   converts keys to and from bytes
+	 * @param valueSerializer converts values to and from bytes
+	 * @throws IOException if the file can't be read or created
+	 */
+	public FileCacheStore(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+			throws IOException {
+		this.file = file;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		values = new HashMap<K, V>();
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		replay();
+	}
+
+	@Override
+	public synchronized V load(K key) {
+		return values.get(key);
+	}
+
+	@Override
+	public synchronized Map<K, V> loadAll(Set<? extends K> keys) {
+		Map<K, V> found = new HashMap<K, V>();
+		for (K key : keys) {
+			V value = values.get(key);
+			if (value != null) {
+				found.put(key, value);
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public void write(K key, V value) throws IOException {
+		writeAll(Collections.singletonMap(key, value));
+	}
+
+	@Override
+	public void delete(K key) throws IOException {
+		deleteAll(Collections.singleton(key));
+	}
+
+	/**
+	 * Appends a record for each entry and forces them to disk together.
+	 *
+	 * @throws IOException if the records can't be written
+	 */
+	@Override
+	public synchronized void writeAll(Map<? extends K, ? extends V> entries) throws IOException {
+		if (entries.isEmpty()) {
+			return;
+		}
+		int length = 0;
+		for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+			length += 9 + keySerializer.serializedSize(entry.getKey())
+					+ valueSerializer.serializedSize(entry.getValue());
+		}
+		ByteBuffer batch = ByteBuffer.allocate(length);
+		for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+			batch.put(WRITE);
+			put(batch, entry.getKey(), keySerializer);
+			put(batch, entry.getValue(), valueSerializer);
+		}
+		append(batch, entries.size());
+		values.putAll(entries);
+	}
+
+	/**
+	 * Appends a delete record for each key and forces them to disk together.
+	 *
+	 * @throws IOException if the records can't be written
+	 */
+	@Override
+	public synchronized void deleteAll(Collection<? extends K> keys) throws IOException {
+		if (keys.isEmpty()) {
+			return;
+		}
+		int length = 0;
+		for (K key : keys) {
+			length += 5 + keySerializer.serializedSize(key);
+		}
+		ByteBuffer batch = ByteBuffer.allocate(length);
+		for (K key : keys) {
+			batch.put(DELETE);
+			put(batch, key, keySerializer);
+		}
+		append(batch, keys.size());
+		values.keySet().removeAll(keys);
+	}
+
+	/**
+	 * Rewrites the log with one record for each key that has a value.
+	 *
+	 * @throws IOException if the log can't be rewritten; the store then stays
+	 *                     open on the old log
+	 */
+	public synchronized void compact() throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileCacheStore<K, V> copy = new FileCacheStore<K, V>(temporary, keySerializer, valueSerializer)) {
+			copy.channel.truncate(0);
+			copy.writeAll(values);
+		}
+		channel.close();
+		try {
+			try {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			// reopens the compacted log, or the old one if the move failed
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			channel.position(channel.size());
+		}
+		records = values.size();
+	}
+
+	/**
+	 * Returns the number of keys with a value.
+	 */
+	public synchronized int size() {
+		return values.size();
+	}
+
+	/**
+	 * Returns the number of records in the log, including those replaced by
+	 * later records.
+	 */
+	public synchronized long recordCount() {
+		return records;
+	}
+
+	/**
+	 * Returns the number of times the log was forced to disk since the store
+	 * was opened, one for each batch written.
+	 */
+	public synchronized long syncCount() {
+		return syncs;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads every complete record of the log into the map, and cuts off a
+	 * record left incomplete by a crash so that new records follow the last
+	 * complete one.
+	 */
+	private void replay() throws IOException {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException(file + " is larger than the 2 GB a store can be");
+		}
+		ByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		int position = 0;
+		while (position < size) {
+			int start = position;
+			byte type = log.get(position++);
+			ByteBuffer key = field(log, position);
+			if ((type != WRITE && type != DELETE) || key == null) {
+				position = start;
+				break;
+			}
+			position += 4 + key.remaining();
+			if (type == WRITE) {
+				ByteBuffer value = field(log, position);
+				if (value == null) {
+					position = start;
+					break;
+				}
+				position += 4 + value.remaining();
+				values.put(keySerializer.read(key), valueSerializer.read(value));
+			} else {
+				values.remove(keySerializer.read(key));
+			}
+			records++;
+		}
+		if (position < size) {
+			channel.truncate(position);
+		}
+		channel.position(position);
+	}
+
+	/** Returns the length-prefixed field at a position, or null if it is cut short */
+	private static ByteBuffer field(ByteBuffer log, int position) {
+		if (position > log.limit() - 4) {
+			return null;
+		}
+		int length = log.getInt(position);
+		if (length < 0 || length > log.limit() - position - 4) {
+			return null;
+		}
+		return log.slice(position + 4, length);
+	}
+
+	private static <T> void put(ByteBuffer batch, T t, Serializer<T> serializer) {
+		int length = serializer.serializedSize(t);
+		batch.putInt(length);
+		serializer.write(t, batch.slice(batch.position(), length));
+		batch.position(batch.position() + length);
+	}
+
+	private void append(ByteBuffer batch, int count) throws IOException {
+		batch.flip();
+		while (batch.hasRemaining()) {
+			channel.write(batch);
+		}
+		channel.force(false);
+		records += count;
+		syncs++;
+	}
+}
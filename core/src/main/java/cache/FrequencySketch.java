@@ -0,0 +1,133 @@
+package cache;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often each item has
+ * been seen. Every item maps to four counters, one per hash function, and its
+ * estimate is the smallest of them, so collisions can only overestimate. The
+ * counters are packed sixteen to a long. After a sample of ten increments per
+ * expected item every counter is halved, which ages out old popularity so the
+ * sketch follows changes in the workload.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of the items counted
+ */
+public class FrequencySketch<E> {
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAXIMUM_FREQUENCY = 15;
+
+	private final long[] table;
+	private final int counterMask;
+	private final int sampleSize;
+	private int additions;
+
+	/**
+	 * Creates a sketch sized for the given number of items, using one long, or
+	 * eight bytes, per item.
+	 *
+	 * @param expectedItems the number of items the sketch should tell apart,
+	 *                      usually the capacity of the cache
+	 */
+	public FrequencySketch(int expectedItems) {
+		this(expectedItems, 10 * Math.min(expectedItems, 1 << 26));
+	}
+
+	/**
+	 * Creates a sketch with one long per expected item that halves its
+	 * counters after the given number of increments, for a sketch smaller or
+	 * aged more slowly than the items it counts would call for.
+	 *
+	 * @param expectedItems the number of items the sketch should tell apart
+	 * @param sampleSize    the number of increments between halvings
+	 */
+	public FrequencySketch(int expectedItems, int sampleSize) {
+		int items = Math.min(Math.max(expectedItems, 16), 1 << 26);
+		int length = Integer.highestOneBit(items - 1) << 1;
+		table = new long[length];
+		counterMask = (length << 4) - 1;
+		this.sampleSize = Math.max(sampleSize, 10 * 16);
+		additions = 0;
+	}
+
+	/**
+	 * Returns the estimated number of times the item was seen, at most 15.
+	 *
+	 * @param e the item
+	 * @return the estimated frequency
+	 */
+	public int frequency(E e) {
+		int hash = spread(e.hashCode());
+		int frequency = MAXIMUM_FREQUENCY;
+		for (int i = 0; i < SEEDS.length; i++) {
+			frequency = Math.min(frequency, counter(indexOf(hash, i)));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Counts one occurrence of the item, halving all counters once the sample
+	 * is full.
+	 *
+	 * @param e the item
+	 * @return true if this increment filled the sample and halved the counters
+	 */
+	public boolean increment(E e) {
+		int hash = spread(e.hashCode());
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			added |= incrementAt(indexOf(hash, i));
+		}
+		if (added && ++additions == sampleSize) {
+			reset();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Forgets all counts.
+	 */
+	public void clear() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = 0L;
+		}
+		additions = 0;
+	}
+
+	private int counter(int index) {
+		int shift = (index & 15) << 2;
+		return (int) ((table[index >>> 4] >>> shift) & 15L);
+	}
+
+	private boolean incrementAt(int index) {
+		int word = index >>> 4;
+		int shift = (index & 15) << 2;
+		if (((table[word] >>> shift) & 15L) == MAXIMUM_FREQUENCY) {
+			return false;
+		}
+		table[word] += 1L << shift;
+		return true;
+	}
+
+	/** Halves every counter by shifting each word and masking the carries */
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions /= 2;
+	}
+
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int) h & counterMask;
+	}
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
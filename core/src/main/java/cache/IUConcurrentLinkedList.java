@@ -0,0 +1,532 @@
+package cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Lock-free, thread-safe implementation of IndexedUnsortedList, after Harris's
+ * linked list. Nodes are linked and unlinked with compare-and-set on their
+ * next links, so threads never block one another and a thread that stalls
+ * can't hold up the rest.
+ *
+ * A node is removed in two steps. First it is marked, by swapping its next
+ * link for a marker node that points on to its successor; Harris steals a bit
+ * of the pointer for the mark, which Java can't do, so the marker stands in
+ * for it, as in ConcurrentSkipListMap. A marked node is logically gone, and
+ * because its next link now holds the marker, no thread can insert after it.
+ * Then it is unlinked from its predecessor, by the remover or by whichever
+ * thread walks past it first.
+ *
+ * addToFront, addToRear, remove and contains can be called from any number of
+ * threads at once. addToRear starts from a tail hint, so it is O(1) when the
+ * hint is current. Operations by index, and removeFirst and removeLast, find
+ * their node by walking the list and act on the position it held at some
+ * moment during the call. size walks the list, so it is O(n) and only a
+ * snapshot while other threads are changing the list.
+ *
+ * Iterators are weakly consistent, as in java.util.concurrent: they never
+ * throw ConcurrentModificationException, see every element that was in the
+ * list for the whole traversal, and may or may not see elements added or
+ * removed during it. listIterator is not supported. Elements can't be null.
+ *
+ * @author chloejohnson
+ *
+ * @param <T> type to store
+ */
+public class IUConcurrentLinkedList<T> implements IndexedUnsortedList<T> {
+	// passed to predecessor to ask for the last node rather than an index
+	private static final int LAST = -1;
+
+	private static final VarHandle NEXT;
+	private static final VarHandle TAIL;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+			TAIL = lookup.findVarHandle(IUConcurrentLinkedList.class, "tail", Node.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// a sentinel before the first node, never removed
+	private final Node<T> head;
+	// a node at or before the last one, where addToRear starts walking
+	private volatile Node<T> tail;
+
+	/** Creates an empty list */
+	public IUConcurrentLinkedList() {
+		head = new Node<T>(null, null, false);
+		tail = head;
+	}
+
+	@Override
+	public void addToFront(T element) {
+		Node<T> node = newNode(element);
+		for (;;) {
+			// the head is never marked, so its next link is always a real node
+			Node<T> first = head.next;
+			node.next = first;
+			if (NEXT.compareAndSet(head, first, node)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void addToRear(T element) {
+		Node<T> node = newNode(element);
+		for (;;) {
+			Node<T> hint = tail;
+			Node<T> last = hint;
+			for (Node<T> next = last.next; next != null; next = last.next) {
+				last = next;
+			}
+			if (last.marker) {
+				// the last node was marked but is still linked: unlink it and
+				// walk again from the head
+				predecessor(null, LAST);
+				TAIL.compareAndSet(this, hint, head);
+			} else if (NEXT.compareAndSet(last, null, node)) {
+				// a node with no next link can't have been marked
+				TAIL.compareAndSet(this, hint, node);
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void add(T element) {
+		addToRear(element);
+	}
+
+	@Override
+	public void addAfter(T element, T target) {
+		Node<T> node = newNode(element);
+		if (target == null) {
+			throw new NoSuchElementException();
+		}
+		for (;;) {
+			Node<T> previous = predecessor(target, 0);
+			if (previous == null) {
+				throw new NoSuchElementException();
+			}
+			Node<T> current = previous.next;
+			if (isLive(current) && current.element.equals(target) && linkAfter(current, node)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void add(int index, T element) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (index == 0) {
+			addToFront(element);
+			return;
+		}
+		Node<T> node = newNode(element);
+		for (;;) {
+			Node<T> previous = predecessor(null, index - 1);
+			if (previous == null) {
+				throw new IndexOutOfBoundsException();
+			}
+			Node<T> current = previous.next;
+			if (isLive(current) && linkAfter(current, node)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public T removeFirst() {
+		for (;;) {
+			Node<T> previous = predecessor(null, 0);
+			if (previous == null) {
+				throw new NoSuchElementException();
+			}
+			Node<T> current = previous.next;
+			if (isLive(current) && mark(current)) {
+				unlink(previous, current);
+				return current.element;
+			}
+		}
+	}
+
+	@Override
+	public T removeLast() {
+		for (;;) {
+			Node<T> previous = predecessor(null, LAST);
+			if (previous == null) {
+				throw new NoSuchElementException();
+			}
+			Node<T> current = previous.next;
+			// marks only if nothing was added after it in the meantime
+			if (current != null && !current.marker
+					&& NEXT.compareAndSet(current, null, new Node<T>(null, null, true))) {
+				unlink(previous, current);
+				return current.element;
+			}
+		}
+	}
+
+	@Override
+	public T remove(T element) {
+		if (element == null) {
+			throw new NoSuchElementException();
+		}
+		for (;;) {
+			Node<T> previous = predecessor(element, 0);
+			if (previous == null) {
+				throw new NoSuchElementException();
+			}
+			Node<T> current = previous.next;
+			if (isLive(current) && current.element.equals(element) && mark(current)) {
+				unlink(previous, current);
+				return current.element;
+			}
+		}
+	}
+
+	@Override
+	public T remove(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		for (;;) {
+			Node<T> previous = predecessor(null, index);
+			if (previous == null) {
+				throw new IndexOutOfBoundsException();
+			}
+			Node<T> current = previous.next;
+			if (isLive(current) && mark(current)) {
+				unlink(previous, current);
+				return current.element;
+			}
+		}
+	}
+
+	@Override
+	public void set(int index, T element) {
+		if (element == null) {
+			throw new NullPointerException();
+		}
+		nodeAt(index).element = element;
+	}
+
+	@Override
+	public T get(int index) {
+		return nodeAt(index).element;
+	}
+
+	@Override
+	public int indexOf(T element) {
+		int index = 0;
+		// reads each next link once, where nextLive would read it twice
+		Node<T> current = head.next;
+		while (current != null) {
+			Node<T> next = current.next;
+			if (!current.marker && (next == null || !next.marker)) {
+				if (current.element.equals(element)) {
+					return index;
+				}
+				index++;
+			}
+			current = next;
+		}
+		return -1;
+	}
+
+	@Override
+	public T first() {
+		Node<T> first = nextLive(head);
+		if (first == null) {
+			throw new NoSuchElementException();
+		}
+		return first.element;
+	}
+
+	@Override
+	public T last() {
+		Node<T> last = null;
+		for (Node<T> current = nextLive(head); current != null; current = nextLive(current)) {
+			last = current;
+		}
+		if (last == null) {
+			throw new NoSuchElementException();
+		}
+		return last.element;
+	}
+
+	@Override
+	public boolean contains(T target) {
+		return indexOf(target) != -1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return nextLive(head) == null;
+	}
+
+	/**
+	 * Counts the elements by walking the list, so it is O(n).
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (Node<T> current = nextLive(head); current != null; current = nextLive(current)) {
+			size++;
+		}
+		return size;
+	}
+
+	/** Creates an unlinked node for a new element */
+	private Node<T> newNode(T element) {
+		if (element == null) {
+			throw new NullPointerException();
+		}
+		return new Node<T>(element, null, false);
+	}
+
+	/**
+	 * Returns the live node at the index, walking the list without changing
+	 * it.
+	 */
+	private Node<T> nodeAt(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		Node<T> current = nextLive(head);
+		for (int i = 0; i < index && current != null; i++) {
+			current = nextLive(current);
+		}
+		if (current == null) {
+			throw new IndexOutOfBoundsException();
+		}
+		return current;
+	}
+
+	/**
+	 * Walks the list from the head, unlinking marked nodes on the way, and
+	 * returns the node before the first live node equal to target, or if target
+	 * is null before the live node at the index, or before the last live node
+	 * for LAST. Returns null if there is no such node. The walk starts over
+	 * whenever an unlink fails, since the predecessor itself was marked or
+	 * changed.
+	 */
+	private Node<T> predecessor(Object target, int index) {
+		retry: for (;;) {
+			Node<T> previous = head;
+			Node<T> current = previous.next;
+			Node<T> beforeLast = null;
+			int i = 0;
+			while (current != null) {
+				Node<T> next = current.next;
+				if (next != null && next.marker) {
+					if (!NEXT.compareAndSet(previous, current, next.next)) {
+						continue retry;
+					}
+					current = next.next;
+					continue;
+				}
+				if (target != null ? current.element.equals(target) : i == index) {
+					return previous;
+				}
+				beforeLast = previous;
+				previous = current;
+				current = next;
+				i++;
+			}
+			return (target == null && index == LAST) ? beforeLast : null;
+		}
+	}
+
+	/**
+	 * Returns the first live node after the given one, skipping markers and
+	 * marked nodes without unlinking them. Works from a marked node too, since
+	 * its marker still points on into the list.
+	 */
+	private Node<T> nextLive(Node<T> node) {
+		Node<T> current = node.next;
+		while (current != null) {
+			Node<T> next = current.next;
+			if (!current.marker && (next == null || !next.marker)) {
+				return current;
+			}
+			current = next;
+		}
+		return null;
+	}
+
+	/** Returns true if the node is a real node that hasn't been marked */
+	private static boolean isLive(Node<?> node) {
+		return node != null && !node.marker && !isMarked(node);
+	}
+
+	/** Returns true if the node has been marked for removal */
+	private static boolean isMarked(Node<?> node) {
+		Node<?> next = node.next;
+		return next != null && next.marker;
+	}
+
+	/**
+	 * Marks the node as removed, unless another thread already has.
+	 *
+	 * @return true if this call marked it
+	 */
+	private boolean mark(Node<T> node) {
+		for (;;) {
+			Node<T> next = node.next;
+			if (next != null && next.marker) {
+				return false;
+			}
+			if (NEXT.compareAndSet(node, next, new Node<T>(null, next, true))) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Links the node in after current, unless current has been marked.
+	 *
+	 * @return true if the node was linked
+	 */
+	private boolean linkAfter(Node<T> current, Node<T> node) {
+		for (;;) {
+			Node<T> next = current.next;
+			if (next != null && next.marker) {
+				return false;
+			}
+			node.next = next;
+			if (NEXT.compareAndSet(current, next, node)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Tries once to unlink a marked node from its predecessor. If it fails the
+	 * node is unlinked by a later walk. If the tail hint is on the node it is
+	 * moved back to the predecessor, so addToRear doesn't have to start over
+	 * from the head.
+	 */
+	private void unlink(Node<T> previous, Node<T> node) {
+		if (NEXT.compareAndSet(previous, node, node.next.next)) {
+			TAIL.compareAndSet(this, node, previous);
+		}
+	}
+
+	/**
+	 * Converts the list to a readable string
+	 *
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("[");
+		for (Node<T> current = nextLive(head); current != null; current = nextLive(current)) {
+			str.append(current.element.toString());
+			str.append(" , ");
+		}
+		if (str.length() > 1) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new ConcurrentIterator();
+	}
+
+	@Override
+	public ListIterator<T> listIterator() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int startingIndex) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(),
+				Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.CONCURRENT);
+	}
+
+	/**
+	 * A node of the list, or a marker when marker is true. A marker holds no
+	 * element and is only ever the next link of a marked node.
+	 */
+	private static class Node<T> {
+		private volatile T element;
+		private volatile Node<T> next;
+		private final boolean marker;
+
+		private Node(T element, Node<T> next, boolean marker) {
+			this.element = element;
+			this.next = next;
+			this.marker = marker;
+		}
+	}
+
+	/**
+	 * Weakly consistent Iterator for IUConcurrentLinkedList. It reads each
+	 * element as it moves past the node before it, so next returns that
+	 * element even if the node is removed in between.
+	 */
+	private class ConcurrentIterator implements Iterator<T> {
+		private Node<T> nextNode;
+		private T nextElement;
+		private Node<T> lastReturned;
+
+		/** Creates a new iterator before the first element */
+		public ConcurrentIterator() {
+			advance(head);
+		}
+
+		private void advance(Node<T> from) {
+			nextNode = nextLive(from);
+			nextElement = (nextNode == null) ? null : nextNode.element;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextNode != null);
+		}
+
+		@Override
+		public T next() {
+			if (nextNode == null) {
+				throw new NoSuchElementException();
+			}
+			T element = nextElement;
+			lastReturned = nextNode;
+			advance(nextNode);
+			return element;
+		}
+
+		/**
+		 * Marks the last node returned, which a later walk unlinks. Does
+		 * nothing if another thread removed it first.
+		 */
+		@Override
+		public void remove() {
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			mark(lastReturned);
+			lastReturned = null;
+		}
+	}
+}
@@ -0,0 +1,432 @@
+package cache;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Double-linked node implementation of IndexedUnsortedList. Every node knows
+ * its predecessor, so removing the last element, removing through an iterator
+ * and moving backwards through a ListIterator are all constant time. Indexed
+ * operations walk from whichever end of the list is closer.
+ *
+ * Unlinked nodes are reused by later adds instead of being reallocated.
+ *
+ * @author chloejohnson
+ *
+ * @param <T> type to store
+ */
+public class IUDoubleLinkedList<T> implements IndexedUnsortedList<T> {
+	// bounds the memory kept for reuse, at three references a node
+	private static final int MAX_SPARES = 64;
+
+	private DoubleLinearNode<T> head, tail;
+	private int size;
+	private int modCount;
+	private final Spares<DoubleLinearNode<T>> spares = new Spares<DoubleLinearNode<T>>(MAX_SPARES);
+
+	/** Creates an empty list */
+	public IUDoubleLinkedList() {
+		head = tail = null;
+		size = 0;
+		modCount = 0;
+	}
+
+	@Override
+	public void addToFront(T element) {
+		linkBefore(newNode(element), head);
+	}
+
+	@Override
+	public void addToRear(T element) {
+		linkBefore(newNode(element), null);
+	}
+
+	@Override
+	public void add(T element) {
+		addToRear(element);
+	}
+
+	@Override
+	public void addAfter(T element, T target) {
+		DoubleLinearNode<T> current = find(target);
+		if (current == null) {
+			throw new NoSuchElementException();
+		}
+		linkBefore(newNode(element), current.getNext());
+	}
+
+	@Override
+	public void add(int index, T element) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException();
+		}
+		linkBefore(newNode(element), index == size ? null : node(index));
+	}
+
+	@Override
+	public T removeFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return unlink(head);
+	}
+
+	@Override
+	public T removeLast() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return unlink(tail);
+	}
+
+	@Override
+	public T remove(T element) {
+		DoubleLinearNode<T> current = find(element);
+		if (current == null) {
+			throw new NoSuchElementException();
+		}
+		return unlink(current);
+	}
+
+	@Override
+	public T remove(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return unlink(node(index));
+	}
+
+	@Override
+	public void set(int index, T element) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		node(index).setElement(element);
+		modCount++;
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return node(index).getElement();
+	}
+
+	@Override
+	public int indexOf(T element) {
+		int index = 0;
+		DoubleLinearNode<T> current = head;
+		while (current != null) {
+			if (current.getElement().equals(element)) {
+				return index;
+			}
+			current = current.getNext();
+			index++;
+		}
+		return -1;
+	}
+
+	@Override
+	public T first() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return head.getElement();
+	}
+
+	@Override
+	public T last() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return tail.getElement();
+	}
+
+	@Override
+	public boolean contains(T target) {
+		return find(target) != null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the first node holding the specified element, or null if the
+	 * element is not in the list.
+	 */
+	private DoubleLinearNode<T> find(T element) {
+		DoubleLinearNode<T> current = head;
+		while (current != null && !element.equals(current.getElement())) {
+			current = current.getNext();
+		}
+		return current;
+	}
+
+	/**
+	 * Returns the node at a valid index, walking from the nearer end.
+	 */
+	private DoubleLinearNode<T> node(int index) {
+		DoubleLinearNode<T> current;
+		if (index < size / 2) {
+			current = head;
+			for (int i = 0; i < index; i++) {
+				current = current.getNext();
+			}
+		} else {
+			current = tail;
+			for (int i = size - 1; i > index; i--) {
+				current = current.getPrevious();
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Returns a spare node holding the element, or a new node if none is
+	 * spare.
+	 */
+	private DoubleLinearNode<T> newNode(T element) {
+		DoubleLinearNode<T> node = spares.poll();
+		if (node == null) {
+			return new DoubleLinearNode<T>(element);
+		}
+		node.setElement(element);
+		return node;
+	}
+
+	/**
+	 * Links a new node in front of the successor, or at the rear of the list if
+	 * the successor is null.
+	 */
+	private void linkBefore(DoubleLinearNode<T> newNode, DoubleLinearNode<T> successor) {
+		DoubleLinearNode<T> previous = (successor == null) ? tail : successor.getPrevious();
+		newNode.setPrevious(previous);
+		newNode.setNext(successor);
+		if (previous == null) {
+			head = newNode;
+		} else {
+			previous.setNext(newNode);
+		}
+		if (successor == null) {
+			tail = newNode;
+		} else {
+			successor.setPrevious(newNode);
+		}
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Unlinks a node from the list, keeping it for reuse, and returns its
+	 * element.
+	 */
+	private T unlink(DoubleLinearNode<T> node) {
+		DoubleLinearNode<T> previous = node.getPrevious();
+		DoubleLinearNode<T> next = node.getNext();
+		if (previous == null) {
+			head = next;
+		} else {
+			previous.setNext(next);
+		}
+		if (next == null) {
+			tail = previous;
+		} else {
+			next.setPrevious(previous);
+		}
+		node.setPrevious(null);
+		node.setNext(null);
+		size--;
+		modCount++;
+		T element = node.getElement();
+		node.setElement(null);
+		spares.offer(node);
+		return element;
+	}
+
+	/**
+	 * Converts the list to a readable string
+	 *
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		DoubleLinearNode<T> current = head;
+		str.append("[");
+		while (current != null) {
+			str.append(current.getElement().toString());
+			str.append(" , ");
+			current = current.getNext();
+		}
+		if (!isEmpty()) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new DLLIterator();
+	}
+
+	@Override
+	public ListIterator<T> listIterator() {
+		return new DLLIterator();
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int startingIndex) {
+		return new DLLIterator(startingIndex);
+	}
+
+	/**
+	 * Performs the action on each element from head to tail, skipping the
+	 * ListIterator's index and previous-link bookkeeping.
+	 */
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int expectedModCount = modCount;
+		DoubleLinearNode<T> current = head;
+		for (int count = size; count > 0 && current != null; count--) {
+			action.accept(current.getElement());
+			current = current.getNext();
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new NodeRunSpliterator<DoubleLinearNode<T>, T>(head, size, DoubleLinearNode::getNext, DoubleLinearNode::getElement,
+				() -> modCount);
+	}
+
+	/** ListIterator for IUDoubleLinkedList */
+	private class DLLIterator implements ListIterator<T> {
+		private DoubleLinearNode<T> nextNode;
+		private DoubleLinearNode<T> lastReturned;
+		private int nextIndex;
+		private int iterModCount;
+
+		/** Creates a new iterator positioned before the first element */
+		public DLLIterator() {
+			this(0);
+		}
+
+		/** Creates a new iterator positioned before the specified index */
+		public DLLIterator(int startingIndex) {
+			if (startingIndex < 0 || startingIndex > size) {
+				throw new IndexOutOfBoundsException();
+			}
+			nextNode = (startingIndex == size) ? null : node(startingIndex);
+			nextIndex = startingIndex;
+			lastReturned = null;
+			iterModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (iterModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			return (nextNode != null);
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = nextNode;
+			nextNode = nextNode.getNext();
+			nextIndex++;
+			return lastReturned.getElement();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			checkForComodification();
+			return (nextIndex > 0);
+		}
+
+		@Override
+		public T previous() {
+			if (!hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			nextNode = (nextNode == null) ? tail : nextNode.getPrevious();
+			lastReturned = nextNode;
+			nextIndex--;
+			return lastReturned.getElement();
+		}
+
+		@Override
+		public int nextIndex() {
+			checkForComodification();
+			return nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			checkForComodification();
+			return nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			if (lastReturned == nextNode) {
+				// last move was previous()
+				nextNode = nextNode.getNext();
+			} else {
+				nextIndex--;
+			}
+			unlink(lastReturned);
+			lastReturned = null;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public void set(T element) {
+			checkForComodification();
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			lastReturned.setElement(element);
+			modCount++;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public void add(T element) {
+			checkForComodification();
+			linkBefore(newNode(element), nextNode);
+			nextIndex++;
+			lastReturned = null;
+			iterModCount = modCount;
+		}
+	}
+}
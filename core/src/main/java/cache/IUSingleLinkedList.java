@@ -1,20 +1,31 @@
+package cache;
+
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Single-linked node implementation of IndexedUnsortedList. An Iterator with
  * working remove() method is implemented, but ListIterator is unsupported.
  * 
+ * Removing an element keeps its node for the next add to reuse, so moving an
+ * element by removing and re-adding it allocates nothing.
+ * 
  * @author Chloe Johnson
  * 
  * @param <T> type to store
  */
 public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
+	// bounds the removed nodes a list holds on to after it shrinks
+	private static final int MAX_SPARES = 64;
+
 	private LinearNode<T> head, tail;
 	private int size;
 	private int modCount;
+	private final Spares<LinearNode<T>> spares = new Spares<LinearNode<T>>(MAX_SPARES);
 
 	/** Creates an empty list */
 	public IUSingleLinkedList() {
@@ -27,14 +38,14 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 	public void addToFront(T element) {
 		LinearNode<T> current = null;
 		if (isEmpty()) {
-			head = new LinearNode<T>(element);
+			head = newNode(element);
 			tail = head;
 		} else if (size == 1) {
-			head = new LinearNode<T>(element);
+			head = newNode(element);
 			head.setNext(tail);
 		} else {
 			current = head;
-			head = new LinearNode<T>(element);
+			head = newNode(element);
 			head.setNext(current);
 		}
 		size++;
@@ -45,14 +56,14 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 	public void addToRear(T element) {
 		LinearNode<T> current = null;
 		if (isEmpty()) {
-			head = new LinearNode<T>(element);
+			head = newNode(element);
 			tail = head;
 		} else if (size == 1) {
-			tail = new LinearNode<T>(element);
+			tail = newNode(element);
 			head.setNext(tail);
 		} else {
 			current = tail;
-			tail = new LinearNode<T>(element);
+			tail = newNode(element);
 			current.setNext(tail);
 		}
 		size++;
@@ -63,14 +74,14 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 	public void add(T element) {
 		LinearNode<T> current = null;
 		if (isEmpty()) {
-			head = new LinearNode<T>(element);
+			head = newNode(element);
 			tail = head;
 		} else if (size == 1) {
-			tail = new LinearNode<T>(element);
+			tail = newNode(element);
 			head.setNext(tail);
 		} else {
 			current = tail;
-			tail = new LinearNode<T>(element);
+			tail = newNode(element);
 			current.setNext(tail);
 		}
 		size++;
@@ -80,7 +91,7 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 	@Override
 	public void addAfter(T element, T target) {
 		LinearNode<T> current = head;
-		LinearNode<T> newNode = new LinearNode<T>(element);
+		LinearNode<T> newNode = newNode(element);
 		boolean isFound = false;
 		while (current != null) {
 			if (current.getElement().equals(target)) {
@@ -103,7 +114,7 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 	@Override
 	public void add(int index, T element) {
 		LinearNode<T> current = head;
-		LinearNode<T> newNode = new LinearNode<T>(element);
+		LinearNode<T> newNode = newNode(element);
 		if (index < 0) {
 			throw new IndexOutOfBoundsException();
 		}
@@ -139,11 +150,14 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 		if (isEmpty()) {
 			throw new NoSuchElementException();
 		}
-		T retVal = head.getElement();
+		LinearNode<T> removed = head;
 		head = head.getNext();
+		if (head == null) {
+			tail = null;
+		}
 		size--;
 		modCount++;
-		return retVal;
+		return recycle(removed);
 	}
 
 	@Override
@@ -152,7 +166,7 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 		if (isEmpty()) {
 			throw new NoSuchElementException();
 		}
-		T retVal = tail.getElement();
+		LinearNode<T> removed = tail;
 		if (size == 1) {
 			head = null;
 			tail = null;
@@ -165,7 +179,7 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 		}
 		size--;
 		modCount++;
-		return retVal;
+		return recycle(removed);
 	}
 
 	@Override
@@ -205,14 +219,13 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 		size--;
 		modCount++;
 
-		return current.getElement();
+		return recycle(current);
 	}
 
 	@Override
 	public T remove(int index) {
 		LinearNode<T> previous = null;
 		LinearNode<T> current = head;
-		T retVal = null;
 		if (index < 0) {
 			throw new IndexOutOfBoundsException();
 		}
@@ -223,27 +236,28 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 			throw new IndexOutOfBoundsException();
 		}
 		if (index == 0) {
-			retVal = head.getElement();
 			head = current.getNext();
+			if (head == null) {
+				tail = null;
+			}
 		} else {
 			for (int i = 0; i < index - 1; i++) {
 				current = current.getNext();
 			}
 			if (current.getNext() == tail) {
 				previous = current;
-				retVal = tail.getElement();
+				current = tail;
 				previous.setNext(null);
 				tail = previous;
 			} else {
 				previous = current;
 				current = current.getNext();
-				retVal = current.getElement();
 				previous.setNext(current.getNext());
 			}
 		}
 		size--;
 		modCount++;
-		return retVal;
+		return recycle(current);
 	}
 
 	@Override
@@ -348,6 +362,31 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 		return size;
 	}
 
+	/**
+	 * Returns a spare node holding the element, or a new node if none is
+	 * spare.
+	 */
+	private LinearNode<T> newNode(T element) {
+		LinearNode<T> node = spares.poll();
+		if (node == null) {
+			return new LinearNode<T>(element);
+		}
+		node.setElement(element);
+		return node;
+	}
+
+	/**
+	 * Keeps a node that was unlinked from the list for reuse and returns the
+	 * element it held.
+	 */
+	private T recycle(LinearNode<T> node) {
+		T element = node.getElement();
+		node.setNext(null);
+		node.setElement(null);
+		spares.offer(node);
+		return element;
+	}
+
 	/**
 	 * Converts the list to a readable string
 	 * 
@@ -386,6 +425,32 @@ public class IUSingleLinkedList<T> implements IndexedUnsortedList<T> {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Performs the action on each element in order, following the next links
+	 * without an Iterator.
+	 */
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int expectedModCount = modCount;
+		LinearNode<T> current = head;
+		for (int count = size; count > 0 && current != null; count--) {
+			action.accept(current.getElement());
+			current = current.getNext();
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new NodeRunSpliterator<LinearNode<T>, T>(head, size, LinearNode::getNext, LinearNode::getElement,
+				() -> modCount);
+	}
+
 	/** Iterator for IUSingleLinkedList */
 	private class SLLIterator implements Iterator<T> {
 		private LinearNode<T> nextNode;
@@ -0,0 +1,680 @@
+package cache;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Indexable skip list implementation of IndexedUnsortedList. Elements are
+ * kept in order in a skip list: every element is in the bottom level, and
+ * each level above holds about a quarter of the elements of the level below,
+ * chosen at random. Each link records how many positions it skips, so the
+ * element at an index is found by following links down from the top level,
+ * and get, set, add and remove at an index take O(log n) expected time
+ * instead of the O(n) of a linked list. Searching for an element by value
+ * still scans the bottom level.
+ *
+ * Positions are counted from a movable origin, and the links out of the head
+ * and the last node of each level are tracked separately, so adding at
+ * either end only touches the levels of the new node, O(1) expected, rather
+ * than adjusting every level. Removing the first element is O(1) expected as
+ * well; removing the last element needs its predecessors and is O(log n).
+ *
+ * @author chloejohnson
+ *
+ * @param <T> type to store
+ */
+public class IUSkipList<T> implements IndexedUnsortedList<T> {
+	/** The most levels a node can have, enough for a billion elements */
+	public static final int MAX_LEVEL = 16;
+
+	// the head's links hold the positions of the first node of each level, as
+	// if the head were at position 0; every other link holds the distance to
+	// the next node
+	private final Node<T> head;
+	// the last node of each level, or the head if the level is empty
+	private final Node<T>[] tails;
+	private final int[] tailPositions;
+	// the position just before index 0, which moves down as elements are
+	// added to the front
+	private int origin;
+	private int levels;
+	private int size;
+	private int modCount;
+	private long random;
+
+	// the last node before a position on each level, filled by findPredecessors
+	private final Node<T>[] update;
+	private final int[] updatePositions;
+
+	/** Creates an empty list */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public IUSkipList() {
+		head = new Node<T>(null, MAX_LEVEL);
+		tails = (Node<T>[]) new Node[MAX_LEVEL];
+		tailPositions = new int[MAX_LEVEL];
+		update = (Node<T>[]) new Node[MAX_LEVEL];
+		updatePositions = new int[MAX_LEVEL];
+		for (int i = 0; i < MAX_LEVEL; i++) {
+			tails[i] = head;
+		}
+		origin = 0;
+		levels = 1;
+		size = 0;
+		modCount = 0;
+		random = 0x2545F4914F6CDD1DL;
+	}
+
+	/**
+	 * Adds the element at the front by moving the origin down, so no link
+	 * above the new node's levels changes.
+	 */
+	@Override
+	public void addToFront(T element) {
+		rebaseIfNeeded();
+		Node<T> node = new Node<T>(element, randomHeight());
+		int position = origin--;
+		for (int i = 0; i < node.next.length; i++) {
+			Node<T> next = head.next[i];
+			node.next[i] = next;
+			if (next != null) {
+				node.span[i] = head.span[i] - position;
+			} else {
+				tails[i] = node;
+				tailPositions[i] = position;
+			}
+			head.next[i] = node;
+			head.span[i] = position;
+		}
+		levels = Math.max(levels, node.next.length);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Adds the element at the rear by linking it after the last node of each
+	 * of its levels.
+	 */
+	@Override
+	public void addToRear(T element) {
+		rebaseIfNeeded();
+		Node<T> node = new Node<T>(element, randomHeight());
+		int position = origin + size + 1;
+		for (int i = 0; i < node.next.length; i++) {
+			Node<T> tail = tails[i];
+			tail.next[i] = node;
+			tail.span[i] = position - tailPositions[i];
+			tails[i] = node;
+			tailPositions[i] = position;
+		}
+		levels = Math.max(levels, node.next.length);
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public void add(T element) {
+		addToRear(element);
+	}
+
+	@Override
+	public void addAfter(T element, T target) {
+		int index = indexOf(target);
+		if (index == -1) {
+			throw new NoSuchElementException();
+		}
+		add(index + 1, element);
+	}
+
+	@Override
+	public void add(int index, T element) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (index == 0) {
+			addToFront(element);
+			return;
+		}
+		if (index == size) {
+			addToRear(element);
+			return;
+		}
+		int position = origin + 1 + index;
+		findPredecessors(position);
+		Node<T> node = new Node<T>(element, randomHeight());
+		for (int i = levels; i < node.next.length; i++) {
+			update[i] = head;
+			updatePositions[i] = 0;
+		}
+		levels = Math.max(levels, node.next.length);
+		// every node from the position on moves one place right
+		for (int i = 0; i < levels; i++) {
+			Node<T> previous = update[i];
+			Node<T> next = previous.next[i];
+			if (next != null) {
+				tailPositions[i]++;
+			}
+			if (i < node.next.length) {
+				node.next[i] = next;
+				if (next != null) {
+					node.span[i] = updatePositions[i] + previous.span[i] + 1 - position;
+				} else {
+					tails[i] = node;
+					tailPositions[i] = position;
+				}
+				previous.next[i] = node;
+				previous.span[i] = position - updatePositions[i];
+			} else if (next != null) {
+				previous.span[i]++;
+			}
+		}
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Removes the first element by moving the origin up, so no link above the
+	 * removed node's levels changes.
+	 */
+	@Override
+	public T removeFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		Node<T> node = head.next[0];
+		int position = head.span[0];
+		origin++;
+		for (int i = 0; i < node.next.length; i++) {
+			Node<T> next = node.next[i];
+			head.next[i] = next;
+			if (next != null) {
+				head.span[i] = position + node.span[i];
+			} else {
+				tails[i] = head;
+				tailPositions[i] = 0;
+			}
+		}
+		size--;
+		modCount++;
+		shrinkLevels();
+		return node.element;
+	}
+
+	@Override
+	public T removeLast() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return removeAt(size - 1);
+	}
+
+	@Override
+	public T remove(T element) {
+		int index = indexOf(element);
+		if (index == -1) {
+			throw new NoSuchElementException();
+		}
+		return removeAt(index);
+	}
+
+	@Override
+	public T remove(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return removeAt(index);
+	}
+
+	@Override
+	public void set(int index, T element) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		nodeAt(index).element = element;
+		modCount++;
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return nodeAt(index).element;
+	}
+
+	@Override
+	public int indexOf(T element) {
+		int index = 0;
+		for (Node<T> current = head.next[0]; current != null; current = current.next[0]) {
+			if (current.element.equals(element)) {
+				return index;
+			}
+			index++;
+		}
+		return -1;
+	}
+
+	@Override
+	public T first() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return head.next[0].element;
+	}
+
+	@Override
+	public T last() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return tails[0].element;
+	}
+
+	@Override
+	public boolean contains(T target) {
+		return indexOf(target) != -1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of levels in use, which grows with the logarithm of
+	 * the size.
+	 */
+	public int levelCount() {
+		return levels;
+	}
+
+	/**
+	 * Fills update and updatePositions with the last node before a position on
+	 * each level in use, and returns the one on the bottom level.
+	 */
+	private Node<T> findPredecessors(int position) {
+		Node<T> current = head;
+		int currentPosition = 0;
+		for (int i = levels - 1; i >= 0; i--) {
+			while (current.next[i] != null && currentPosition + current.span[i] < position) {
+				currentPosition += current.span[i];
+				current = current.next[i];
+			}
+			update[i] = current;
+			updatePositions[i] = currentPosition;
+		}
+		return current;
+	}
+
+	/** Returns the node at a valid index */
+	private Node<T> nodeAt(int index) {
+		if (index == 0) {
+			return head.next[0];
+		}
+		if (index == size - 1) {
+			return tails[0];
+		}
+		// descends like findPredecessors without writing update, so threads
+		// splitting a spliterator can look up nodes at once
+		int position = origin + 1 + index;
+		Node<T> current = head;
+		int currentPosition = 0;
+		for (int i = levels - 1; i >= 0; i--) {
+			while (current.next[i] != null && currentPosition + current.span[i] <= position) {
+				currentPosition += current.span[i];
+				current = current.next[i];
+			}
+			if (currentPosition == position && current != head) {
+				return current;
+			}
+		}
+		return current;
+	}
+
+	/** Unlinks the node at a valid index and returns its element */
+	private T removeAt(int index) {
+		if (index == 0) {
+			return removeFirst();
+		}
+		int position = origin + 1 + index;
+		Node<T> node = findPredecessors(position).next[0];
+		// every node after the position moves one place left
+		for (int i = 0; i < levels; i++) {
+			Node<T> previous = update[i];
+			if (previous.next[i] == node) {
+				Node<T> next = node.next[i];
+				previous.next[i] = next;
+				if (next != null) {
+					previous.span[i] += node.span[i] - 1;
+					tailPositions[i]--;
+				} else {
+					tails[i] = previous;
+					tailPositions[i] = updatePositions[i];
+				}
+			} else if (previous.next[i] != null) {
+				previous.span[i]--;
+				tailPositions[i]--;
+			}
+		}
+		size--;
+		modCount++;
+		shrinkLevels();
+		return node.element;
+	}
+
+	/** Drops empty levels from the top */
+	private void shrinkLevels() {
+		while (levels > 1 && head.next[levels - 1] == null) {
+			levels--;
+		}
+	}
+
+	/**
+	 * Moves the origin back to 0 before positions can overflow, which only
+	 * changes the positions held by the head and for the last nodes.
+	 */
+	private void rebaseIfNeeded() {
+		if (origin > Integer.MIN_VALUE / 2 && origin + size < Integer.MAX_VALUE / 2) {
+			return;
+		}
+		int shift = -origin;
+		origin = 0;
+		for (int i = 0; i < MAX_LEVEL; i++) {
+			if (head.next[i] != null) {
+				head.span[i] += shift;
+				tailPositions[i] += shift;
+			}
+		}
+	}
+
+	/** Returns a level count from 1 up, each level a quarter as likely as the last */
+	private int randomHeight() {
+		random ^= random >>> 12;
+		random ^= random << 25;
+		random ^= random >>> 27;
+		long bits = random * 0x2545F4914F6CDD1DL;
+		int height = 1;
+		while ((bits & 3) == 0 && height < MAX_LEVEL) {
+			height++;
+			bits >>>= 2;
+		}
+		return height;
+	}
+
+	/**
+	 * Converts the list to a readable string
+	 *
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		Node<T> current = head.next[0];
+		str.append("[");
+		while (current != null) {
+			str.append(current.element.toString());
+			str.append(" , ");
+			current = current.next[0];
+		}
+		if (!isEmpty()) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new SkipListIterator(0);
+	}
+
+	@Override
+	public ListIterator<T> listIterator() {
+		return new SkipListIterator(0);
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int startingIndex) {
+		return new SkipListIterator(startingIndex);
+	}
+
+	/**
+	 * Performs the action on each element in order along the bottom level, where
+	 * every node is linked to its successor.
+	 */
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int expectedModCount = modCount;
+		Node<T> current = head.next[0];
+		for (int count = size; count > 0 && current != null; count--) {
+			action.accept(current.element);
+			current = current.next[0];
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new SkipListSpliterator(head.next[0], 0, size, modCount);
+	}
+
+	/** A node of the skip list, with a link and a span for each of its levels */
+	private static class Node<T> {
+		private T element;
+		private final Node<T>[] next;
+		private final int[] span;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Node(T element, int height) {
+			this.element = element;
+			next = (Node<T>[]) new Node[height];
+			span = new int[height];
+		}
+	}
+
+	/**
+	 * ListIterator for IUSkipList. Moving forward follows the bottom level;
+	 * moving back, and any change made through the iterator, looks the
+	 * position up again in O(log n).
+	 */
+	private class SkipListIterator implements ListIterator<T> {
+		private Node<T> nextNode;
+		private int nextIndex;
+		private int lastIndex;
+		private int iterModCount;
+
+		/** Creates a new iterator positioned before the specified index */
+		public SkipListIterator(int startingIndex) {
+			if (startingIndex < 0 || startingIndex > size) {
+				throw new IndexOutOfBoundsException();
+			}
+			nextIndex = startingIndex;
+			nextNode = (startingIndex == size) ? null : nodeAt(startingIndex);
+			lastIndex = -1;
+			iterModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (iterModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			return (nextNode != null);
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T element = nextNode.element;
+			nextNode = nextNode.next[0];
+			lastIndex = nextIndex++;
+			return element;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			checkForComodification();
+			return (nextIndex > 0);
+		}
+
+		@Override
+		public T previous() {
+			if (!hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			nextNode = nodeAt(--nextIndex);
+			lastIndex = nextIndex;
+			return nextNode.element;
+		}
+
+		@Override
+		public int nextIndex() {
+			checkForComodification();
+			return nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			checkForComodification();
+			return nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if (lastIndex < 0) {
+				throw new IllegalStateException();
+			}
+			removeAt(lastIndex);
+			if (lastIndex < nextIndex) {
+				nextIndex--;
+			}
+			nextNode = (nextIndex == size) ? null : nodeAt(nextIndex);
+			lastIndex = -1;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public void set(T element) {
+			checkForComodification();
+			if (lastIndex < 0) {
+				throw new IllegalStateException();
+			}
+			nodeAt(lastIndex).element = element;
+			modCount++;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public void add(T element) {
+			checkForComodification();
+			IUSkipList.this.add(nextIndex, element);
+			nextIndex++;
+			lastIndex = -1;
+			iterModCount = modCount;
+		}
+	}
+
+	/**
+	 * Spliterator for IUSkipList, covering a run of elements given by its first
+	 * node, that node's index and a count. A split descends from the top level
+	 * to the middle index in O(log n) instead of walking the bottom level.
+	 */
+	private class SkipListSpliterator implements Spliterator<T> {
+		private Node<T> current;
+		private int index;
+		private int remaining;
+		private final int expectedModCount;
+
+		/** Creates a spliterator over count nodes starting at first, at index */
+		public SkipListSpliterator(Node<T> first, int index, int count, int expectedModCount) {
+			current = first;
+			this.index = index;
+			remaining = count;
+			this.expectedModCount = expectedModCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (remaining <= 0 || current == null) {
+				return false;
+			}
+			T element = current.element;
+			current = current.next[0];
+			index++;
+			remaining--;
+			action.accept(element);
+			checkForComodification();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			Node<T> node = current;
+			int count = remaining;
+			current = null;
+			index += remaining;
+			remaining = 0;
+			for (; count > 0 && node != null; count--) {
+				action.accept(node.element);
+				node = node.next[0];
+			}
+			checkForComodification();
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int half = remaining >>> 1;
+			if (half == 0) {
+				return null;
+			}
+			checkForComodification();
+			Node<T> first = current;
+			int firstIndex = index;
+			index += half;
+			current = nodeAt(index);
+			remaining -= half;
+			return new SkipListSpliterator(first, firstIndex, half, expectedModCount);
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
+}
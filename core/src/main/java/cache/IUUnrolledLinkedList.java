@@ -0,0 +1,635 @@
+package cache;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Unrolled linked list implementation of IndexedUnsortedList. Elements are
+ * kept in a doubly linked list of chunks, each an array of up to CHUNK_SIZE
+ * elements, so indexed operations skip a whole chunk per link followed and
+ * scans read elements from consecutive array slots instead of chasing a
+ * pointer per element. A chunk costs a few words however many elements it
+ * holds, so the per-element overhead is little more than the array slot.
+ *
+ * Inserting into a full chunk splits it in two, except that a chunk full at
+ * either end of the list gets a new neighbour instead, so lists built with
+ * addToRear or addToFront stay densely packed. Removing from a chunk that
+ * falls below a quarter full merges it with a neighbour when they fit in one
+ * chunk. Both ends are reached in constant time; an element in the middle is
+ * found by walking chunks from the nearer end.
+ *
+ * @author chloejohnson
+ *
+ * @param <T> type to store
+ */
+public class IUUnrolledLinkedList<T> implements IndexedUnsortedList<T> {
+	/** The number of elements a chunk holds, 32 references or two cache lines */
+	public static final int CHUNK_SIZE = 32;
+
+	private static final int MERGE_THRESHOLD = CHUNK_SIZE / 4;
+
+	private Chunk head, tail;
+	private int size;
+	private int modCount;
+	// the index of the first element of the chunk chunkOf last returned
+	private int chunkStart;
+
+	/** Creates an empty list */
+	public IUUnrolledLinkedList() {
+		head = tail = null;
+		size = 0;
+		modCount = 0;
+	}
+
+	@Override
+	public void addToFront(T element) {
+		if (head == null) {
+			linkAfter(new Chunk(), null);
+		}
+		insert(head, 0, element);
+	}
+
+	@Override
+	public void addToRear(T element) {
+		if (tail == null) {
+			linkAfter(new Chunk(), null);
+		}
+		insert(tail, tail.count, element);
+	}
+
+	@Override
+	public void add(T element) {
+		addToRear(element);
+	}
+
+	@Override
+	public void addAfter(T element, T target) {
+		for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+			for (int i = 0; i < chunk.count; i++) {
+				if (chunk.elements[i].equals(target)) {
+					insert(chunk, i + 1, element);
+					return;
+				}
+			}
+		}
+		throw new NoSuchElementException();
+	}
+
+	@Override
+	public void add(int index, T element) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (index == size) {
+			addToRear(element);
+			return;
+		}
+		Chunk chunk = chunkOf(index);
+		insert(chunk, index - chunkStart, element);
+	}
+
+	@Override
+	public T removeFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return removeAt(head, 0);
+	}
+
+	@Override
+	public T removeLast() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return removeAt(tail, tail.count - 1);
+	}
+
+	@Override
+	public T remove(T element) {
+		for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+			for (int i = 0; i < chunk.count; i++) {
+				if (element.equals(chunk.elements[i])) {
+					return removeAt(chunk, i);
+				}
+			}
+		}
+		throw new NoSuchElementException();
+	}
+
+	@Override
+	public T remove(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		Chunk chunk = chunkOf(index);
+		return removeAt(chunk, index - chunkStart);
+	}
+
+	@Override
+	public void set(int index, T element) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		Chunk chunk = chunkOf(index);
+		chunk.elements[index - chunkStart] = element;
+		modCount++;
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		Chunk chunk = chunkOf(index);
+		return elementAt(chunk, index - chunkStart);
+	}
+
+	@Override
+	public int indexOf(T element) {
+		int index = 0;
+		for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+			for (int i = 0; i < chunk.count; i++) {
+				if (chunk.elements[i].equals(element)) {
+					return index + i;
+				}
+			}
+			index += chunk.count;
+		}
+		return -1;
+	}
+
+	@Override
+	public T first() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return elementAt(head, 0);
+	}
+
+	@Override
+	public T last() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return elementAt(tail, tail.count - 1);
+	}
+
+	@Override
+	public boolean contains(T target) {
+		return indexOf(target) != -1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of chunks, which is at least size / CHUNK_SIZE.
+	 */
+	public int chunkCount() {
+		int chunks = 0;
+		for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+			chunks++;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Returns the chunk holding a valid index, walking from the nearer end, and
+	 * leaves the index of its first element in chunkStart.
+	 */
+	private Chunk chunkOf(int index) {
+		Chunk chunk;
+		int start;
+		if (index < size / 2) {
+			chunk = head;
+			start = 0;
+			while (start + chunk.count <= index) {
+				start += chunk.count;
+				chunk = chunk.next;
+			}
+		} else {
+			chunk = tail;
+			start = size - tail.count;
+			while (start > index) {
+				chunk = chunk.prev;
+				start -= chunk.count;
+			}
+		}
+		chunkStart = start;
+		return chunk;
+	}
+
+	/**
+	 * Inserts an element at an offset in a chunk, from 0 to its count, making
+	 * room first if the chunk is full.
+	 */
+	private void insert(Chunk chunk, int offset, T element) {
+		if (chunk.count == CHUNK_SIZE) {
+			if (offset == CHUNK_SIZE && chunk == tail) {
+				chunk = linkAfter(new Chunk(), chunk);
+				offset = 0;
+			} else if (offset == 0 && chunk == head) {
+				chunk = linkAfter(new Chunk(), null);
+			} else {
+				// move the upper half to a new chunk after this one
+				int half = CHUNK_SIZE / 2;
+				Chunk upper = linkAfter(new Chunk(), chunk);
+				System.arraycopy(chunk.elements, half, upper.elements, 0, CHUNK_SIZE - half);
+				for (int i = half; i < CHUNK_SIZE; i++) {
+					chunk.elements[i] = null;
+				}
+				upper.count = CHUNK_SIZE - half;
+				chunk.count = half;
+				if (offset > half) {
+					chunk = upper;
+					offset -= half;
+				}
+			}
+		}
+		System.arraycopy(chunk.elements, offset, chunk.elements, offset + 1, chunk.count - offset);
+		chunk.elements[offset] = element;
+		chunk.count++;
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Removes the element at an offset in a chunk and returns it, unlinking the
+	 * chunk if it empties and merging it with a neighbour if it runs low.
+	 */
+	private T removeAt(Chunk chunk, int offset) {
+		T element = elementAt(chunk, offset);
+		System.arraycopy(chunk.elements, offset + 1, chunk.elements, offset, chunk.count - offset - 1);
+		chunk.elements[--chunk.count] = null;
+		size--;
+		modCount++;
+		if (chunk.count == 0) {
+			unlink(chunk);
+		} else if (chunk.count < MERGE_THRESHOLD) {
+			if (chunk.next != null && chunk.count + chunk.next.count <= CHUNK_SIZE) {
+				merge(chunk, chunk.next);
+			} else if (chunk.prev != null && chunk.prev.count + chunk.count <= CHUNK_SIZE) {
+				merge(chunk.prev, chunk);
+			}
+		}
+		return element;
+	}
+
+	/** Moves the elements of a chunk onto the end of the chunk before it */
+	private void merge(Chunk chunk, Chunk next) {
+		System.arraycopy(next.elements, 0, chunk.elements, chunk.count, next.count);
+		chunk.count += next.count;
+		unlink(next);
+	}
+
+	/** Links a chunk after the given one, or at the front if it is null */
+	private Chunk linkAfter(Chunk chunk, Chunk previous) {
+		Chunk next = (previous == null) ? head : previous.next;
+		chunk.prev = previous;
+		chunk.next = next;
+		if (previous == null) {
+			head = chunk;
+		} else {
+			previous.next = chunk;
+		}
+		if (next == null) {
+			tail = chunk;
+		} else {
+			next.prev = chunk;
+		}
+		return chunk;
+	}
+
+	private void unlink(Chunk chunk) {
+		if (chunk.prev == null) {
+			head = chunk.next;
+		} else {
+			chunk.prev.next = chunk.next;
+		}
+		if (chunk.next == null) {
+			tail = chunk.prev;
+		} else {
+			chunk.next.prev = chunk.prev;
+		}
+		chunk.prev = chunk.next = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T elementAt(Chunk chunk, int offset) {
+		return (T) chunk.elements[offset];
+	}
+
+	/**
+	 * Converts the list to a readable string
+	 *
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("[");
+		for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+			for (int i = 0; i < chunk.count; i++) {
+				str.append(chunk.elements[i].toString());
+				str.append(" , ");
+			}
+		}
+		if (!isEmpty()) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new UnrolledIterator(0);
+	}
+
+	@Override
+	public ListIterator<T> listIterator() {
+		return new UnrolledIterator(0);
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int startingIndex) {
+		return new UnrolledIterator(startingIndex);
+	}
+
+	/**
+	 * Performs the action on each element in order, scanning each chunk's array
+	 * up to its count before moving to the next chunk.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int expectedModCount = modCount;
+		for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+			for (int i = 0; i < chunk.count; i++) {
+				action.accept((T) chunk.elements[i]);
+			}
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new UnrolledSpliterator(head, 0, size, modCount);
+	}
+
+	/** A run of up to CHUNK_SIZE consecutive elements */
+	private static class Chunk {
+		private final Object[] elements = new Object[CHUNK_SIZE];
+		private int count;
+		private Chunk prev, next;
+	}
+
+	/**
+	 * ListIterator for IUUnrolledLinkedList. It keeps the chunk and offset of
+	 * the next element, or a null chunk at the end of the list, and finds them
+	 * again by index after it changes the list, since an insert or remove may
+	 * split or merge chunks.
+	 */
+	private class UnrolledIterator implements ListIterator<T> {
+		private Chunk chunk;
+		private int offset;
+		private int nextIndex;
+		private Chunk lastChunk;
+		private int lastOffset;
+		private boolean lastWasNext;
+		private int iterModCount;
+
+		/** Creates a new iterator positioned before the specified index */
+		public UnrolledIterator(int startingIndex) {
+			if (startingIndex < 0 || startingIndex > size) {
+				throw new IndexOutOfBoundsException();
+			}
+			seek(startingIndex);
+			lastChunk = null;
+			iterModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (iterModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		/** Positions the iterator before an index */
+		private void seek(int index) {
+			nextIndex = index;
+			if (index == size) {
+				chunk = null;
+				offset = 0;
+			} else if (index == 0) {
+				chunk = head;
+				offset = 0;
+			} else {
+				chunk = chunkOf(index);
+				offset = index - chunkStart;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			return (chunk != null);
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastChunk = chunk;
+			lastOffset = offset;
+			lastWasNext = true;
+			nextIndex++;
+			if (++offset == chunk.count) {
+				chunk = chunk.next;
+				offset = 0;
+			}
+			return elementAt(lastChunk, lastOffset);
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			checkForComodification();
+			return (nextIndex > 0);
+		}
+
+		@Override
+		public T previous() {
+			if (!hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			if (offset > 0) {
+				offset--;
+			} else {
+				chunk = (chunk == null) ? tail : chunk.prev;
+				offset = chunk.count - 1;
+			}
+			nextIndex--;
+			lastChunk = chunk;
+			lastOffset = offset;
+			lastWasNext = false;
+			return elementAt(chunk, offset);
+		}
+
+		@Override
+		public int nextIndex() {
+			checkForComodification();
+			return nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			checkForComodification();
+			return nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if (lastChunk == null) {
+				throw new IllegalStateException();
+			}
+			removeAt(lastChunk, lastOffset);
+			seek(lastWasNext ? nextIndex - 1 : nextIndex);
+			lastChunk = null;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public void set(T element) {
+			checkForComodification();
+			if (lastChunk == null) {
+				throw new IllegalStateException();
+			}
+			lastChunk.elements[lastOffset] = element;
+			modCount++;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public void add(T element) {
+			checkForComodification();
+			IUUnrolledLinkedList.this.add(nextIndex, element);
+			seek(nextIndex + 1);
+			lastChunk = null;
+			iterModCount = modCount;
+		}
+	}
+
+	/**
+	 * Spliterator for IUUnrolledLinkedList, covering a run of elements given by
+	 * the chunk and offset of its first element and a count. A split steps a
+	 * whole chunk at a time to the middle of the run, so it visits one chunk per
+	 * chunk's worth of elements rather than every element.
+	 */
+	private class UnrolledSpliterator implements Spliterator<T> {
+		private Chunk chunk;
+		private int offset;
+		private int remaining;
+		private final int expectedModCount;
+
+		/** Creates a spliterator over count elements starting at offset in chunk */
+		public UnrolledSpliterator(Chunk chunk, int offset, int count, int expectedModCount) {
+			this.chunk = chunk;
+			this.offset = offset;
+			remaining = count;
+			this.expectedModCount = expectedModCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			while (chunk != null && offset >= chunk.count) {
+				chunk = chunk.next;
+				offset = 0;
+			}
+			if (remaining <= 0 || chunk == null) {
+				return false;
+			}
+			T element = (T) chunk.elements[offset++];
+			remaining--;
+			action.accept(element);
+			checkForComodification();
+			return true;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEachRemaining(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			Chunk current = chunk;
+			int start = offset;
+			int count = remaining;
+			chunk = null;
+			remaining = 0;
+			while (count > 0 && current != null) {
+				int end = Math.min(current.count, start + count);
+				for (int i = start; i < end; i++) {
+					action.accept((T) current.elements[i]);
+				}
+				count -= Math.max(end - start, 0);
+				current = current.next;
+				start = 0;
+			}
+			checkForComodification();
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int half = remaining >>> 1;
+			if (half == 0) {
+				return null;
+			}
+			Chunk first = chunk;
+			int firstOffset = offset;
+			offset += half;
+			while (offset >= chunk.count) {
+				offset -= chunk.count;
+				chunk = chunk.next;
+			}
+			remaining -= half;
+			return new UnrolledSpliterator(first, firstOffset, half, expectedModCount);
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
+}
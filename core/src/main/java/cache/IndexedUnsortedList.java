@@ -1,4 +1,8 @@
+package cache;
+
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *  Interface for an Iterable, Indexed, Unsorted List ADT.
@@ -183,4 +187,25 @@ public interface IndexedUnsortedList<T> extends Iterable<T>
      * @throws UnsupportedOperationException if not implemented
      */
     public ListIterator<T> listIterator(int startingIndex);
-}
\ No newline at end of file
+
+    /**  
+     * Returns a sequential Stream over the elements in this list,
+     * drawn from the list's spliterator. 
+     *
+     * @return a sequential Stream over the elements in this list
+     */
+    public default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**  
+     * Returns a possibly parallel Stream over the elements in this
+     * list. It runs in parallel only as well as the list's
+     * spliterator splits. 
+     *
+     * @return a possibly parallel Stream over the elements in this list
+     */
+    public default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+}
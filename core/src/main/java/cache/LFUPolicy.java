@@ -0,0 +1,200 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Least frequently used replacement in constant time. Items with the same
+ * access count share a bucket, and the buckets form a list ordered by count,
+ * so a hit only moves an item into the neighbouring bucket and the victim is
+ * always found in the first bucket. Ties are broken by evicting the least
+ * recently used item of that bucket.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class LFUPolicy<E> implements EvictionPolicy<E> {
+	private HashMap<E, Entry<E>> index;
+	private Bucket<E> lowest;
+
+	/** Creates an empty policy */
+	public LFUPolicy() {
+		index = new HashMap<E, Entry<E>>();
+		lowest = null;
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return index.containsKey(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		Entry<E> entry = index.get(e);
+		if (entry == null) {
+			return false;
+		}
+		Bucket<E> bucket = entry.bucket;
+		Bucket<E> next = bucket.next;
+		if (next == null || next.frequency != bucket.frequency + 1) {
+			next = new Bucket<E>(bucket.frequency + 1);
+			linkAfter(next, bucket);
+		}
+		unlink(entry);
+		next.addToFront(entry);
+		return true;
+	}
+
+	@Override
+	public void add(E e) {
+		if (lowest == null || lowest.frequency != 1) {
+			linkAfter(new Bucket<E>(1), null);
+		}
+		Entry<E> entry = new Entry<E>(e);
+		index.put(e, entry);
+		lowest.addToFront(entry);
+	}
+
+	@Override
+	public E evict() {
+		if (lowest == null) {
+			throw new NoSuchElementException();
+		}
+		Entry<E> victim = lowest.tail;
+		index.remove(victim.element);
+		unlink(victim);
+		return victim.element;
+	}
+
+	@Override
+	public E victim() {
+		return (lowest == null) ? null : lowest.tail.element;
+	}
+
+	@Override
+	public void remove(E e) {
+		Entry<E> entry = index.remove(e);
+		if (entry == null) {
+			throw new NoSuchElementException();
+		}
+		unlink(entry);
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public void clear() {
+		index.clear();
+		lowest = null;
+	}
+
+	/**
+	 * Returns the access count of a resident item.
+	 *
+	 * @param e the item
+	 * @return the number of accesses, or 0 if the item isn't resident
+	 */
+	public long frequency(E e) {
+		Entry<E> entry = index.get(e);
+		return (entry == null) ? 0 : entry.bucket.frequency;
+	}
+
+	/**
+	 * Iterates from the most to the least frequently used item. The items are
+	 * copied first, so the iterator doesn't support removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		ArrayList<E> items = new ArrayList<E>(index.size());
+		for (Bucket<E> bucket = lowest; bucket != null; bucket = bucket.next) {
+			for (Entry<E> entry = bucket.tail; entry != null; entry = entry.prev) {
+				items.add(entry.element);
+			}
+		}
+		Collections.reverse(items);
+		return Collections.unmodifiableList(items).iterator();
+	}
+
+	/** Links a bucket after another one, or first if the other one is null */
+	private void linkAfter(Bucket<E> bucket, Bucket<E> previous) {
+		Bucket<E> next = (previous == null) ? lowest : previous.next;
+		bucket.prev = previous;
+		bucket.next = next;
+		if (previous == null) {
+			lowest = bucket;
+		} else {
+			previous.next = bucket;
+		}
+		if (next != null) {
+			next.prev = bucket;
+		}
+	}
+
+	/** Unlinks an entry from its bucket, dropping the bucket if it empties */
+	private void unlink(Entry<E> entry) {
+		Bucket<E> bucket = entry.bucket;
+		if (entry.prev == null) {
+			bucket.head = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next == null) {
+			bucket.tail = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = entry.next = null;
+		entry.bucket = null;
+		if (bucket.head == null) {
+			if (bucket.prev == null) {
+				lowest = bucket.next;
+			} else {
+				bucket.prev.next = bucket.next;
+			}
+			if (bucket.next != null) {
+				bucket.next.prev = bucket.prev;
+			}
+		}
+	}
+
+	/** An item and its links within its bucket */
+	private static class Entry<E> {
+		private final E element;
+		private Bucket<E> bucket;
+		private Entry<E> prev, next;
+
+		private Entry(E element) {
+			this.element = element;
+		}
+	}
+
+	/** The items accessed a given number of times, most recently used first */
+	private static class Bucket<E> {
+		private final long frequency;
+		private Entry<E> head, tail;
+		private Bucket<E> prev, next;
+
+		private Bucket(long frequency) {
+			this.frequency = frequency;
+		}
+
+		private void addToFront(Entry<E> entry) {
+			entry.bucket = this;
+			entry.prev = null;
+			entry.next = head;
+			if (head == null) {
+				tail = entry;
+			} else {
+				head.prev = entry;
+			}
+			head = entry;
+		}
+	}
+}
@@ -0,0 +1,386 @@
+package cache;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A recency list that pairs a hash index with an intrusive doubly linked list.
+ * Each element is stored in exactly one entry, and the index maps the element
+ * to its entry so that lookup, promotion to the front and removal from either
+ * end are all constant time. The front of the list is the most recently used
+ * element and the rear is the least recently used one. Elements are unique and
+ * not null; adding an element that is already present only moves it to the
+ * front.
+ *
+ * The index is a chained hash table whose chains run through the entries
+ * themselves, so an element costs one entry rather than an entry and a map
+ * node. Promotion relinks the element's entry in place, and a removed entry
+ * is reused for a later add, so a full cache that admits one element and
+ * evicts another allocates nothing until the table has to grow.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> type to store
+ */
+public class LRUList<E> implements Iterable<E> {
+	// caps the removed entries kept out of the table for reuse
+	private static final int MAX_SPARES = 64;
+
+	private Entry<E>[] table;
+	private Entry<E> head, tail;
+	private int size;
+	private int modCount;
+	private final Spares<Entry<E>> spares = new Spares<Entry<E>>(MAX_SPARES);
+
+	/** Creates an empty list */
+	public LRUList() {
+		this(12);
+	}
+
+	/**
+	 * Creates an empty list whose index is sized for the expected number of
+	 * elements, so that it doesn't have to be rehashed while filling up. Very
+	 * large sizes are capped and grow on demand.
+	 *
+	 * @param expectedSize the number of elements the list is expected to hold
+	 */
+	public LRUList(int expectedSize) {
+		int capacity = Math.min(Math.max(expectedSize, 12), 1 << 20);
+		// a power of two that holds the capacity at a load factor of 0.75
+		table = newTable(Integer.highestOneBit((capacity * 4 + 2) / 3 - 1) << 1);
+		head = tail = null;
+		size = 0;
+		modCount = 0;
+	}
+
+	/**
+	 * Adds the specified element to the front of this list. If the element is
+	 * already in the list it is moved to the front instead.
+	 *
+	 * @param element the element to be added
+	 * @return true if the element was added, false if it was already present
+	 */
+	public boolean addToFront(E element) {
+		int hash = hash(element);
+		Entry<E> entry = find(element, hash);
+		if (entry != null) {
+			moveToFront(entry);
+			return false;
+		}
+		if (size >= table.length - (table.length >>> 2)) {
+			resize();
+		}
+		entry = newEntry(element, hash);
+		int bucket = hash & (table.length - 1);
+		entry.chain = table[bucket];
+		table[bucket] = entry;
+		size++;
+		linkFirst(entry);
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Moves the specified element to the front of this list by relinking its
+	 * existing entry.
+	 *
+	 * @param element the element to be moved
+	 * @return true if the element was found, false if it is not in the list
+	 */
+	public boolean moveToFront(E element) {
+		Entry<E> entry = find(element, hash(element));
+		if (entry == null) {
+			return false;
+		}
+		moveToFront(entry);
+		return true;
+	}
+
+	/**
+	 * Removes the specified element from this list.
+	 *
+	 * @param element the element to be removed
+	 * @return the removed element
+	 * @throws NoSuchElementException if the element is not in this list
+	 */
+	public E remove(E element) {
+		Entry<E> entry = find(element, hash(element));
+		if (entry == null) {
+			throw new NoSuchElementException();
+		}
+		return delete(entry);
+	}
+
+	/**
+	 * Removes and returns the least recently used element.
+	 *
+	 * @return the last element in this list
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public E removeLast() {
+		if (tail == null) {
+			throw new NoSuchElementException();
+		}
+		return delete(tail);
+	}
+
+	/**
+	 * Returns the most recently used element.
+	 *
+	 * @return the first element in this list
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public E first() {
+		if (head == null) {
+			throw new NoSuchElementException();
+		}
+		return head.element;
+	}
+
+	/**
+	 * Returns the least recently used element.
+	 *
+	 * @return the last element in this list
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public E last() {
+		if (tail == null) {
+			throw new NoSuchElementException();
+		}
+		return tail.element;
+	}
+
+	/**
+	 * Returns true if this list contains the specified element.
+	 *
+	 * @param element the element being sought
+	 * @return true if the element is in the list
+	 */
+	public boolean contains(E element) {
+		return find(element, hash(element)) != null;
+	}
+
+	/**
+	 * Returns the number of elements in this list.
+	 *
+	 * @return the number of elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if this list contains no elements.
+	 *
+	 * @return true if the list is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all elements from this list.
+	 */
+	public void clear() {
+		Arrays.fill(table, null);
+		head = tail = null;
+		size = 0;
+		modCount++;
+	}
+
+	private void moveToFront(Entry<E> entry) {
+		if (entry != head) {
+			unlink(entry);
+			linkFirst(entry);
+			modCount++;
+		}
+	}
+
+	/** Returns the entry holding the element, or null */
+	private Entry<E> find(E element, int hash) {
+		Entry<E> entry = table[hash & (table.length - 1)];
+		while (entry != null && (entry.hash != hash || !element.equals(entry.element))) {
+			entry = entry.chain;
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes an entry from the index and the list, keeping it for reuse, and
+	 * returns its element.
+	 */
+	private E delete(Entry<E> entry) {
+		int bucket = entry.hash & (table.length - 1);
+		if (table[bucket] == entry) {
+			table[bucket] = entry.chain;
+		} else {
+			Entry<E> previous = table[bucket];
+			while (previous.chain != entry) {
+				previous = previous.chain;
+			}
+			previous.chain = entry.chain;
+		}
+		size--;
+		unlink(entry);
+		modCount++;
+		E element = entry.element;
+		entry.element = null;
+		entry.chain = null;
+		spares.offer(entry);
+		return element;
+	}
+
+	/** Returns a spare entry holding the element, or a new one if none is spare */
+	private Entry<E> newEntry(E element, int hash) {
+		Entry<E> entry = spares.poll();
+		if (entry == null) {
+			return new Entry<E>(element, hash);
+		}
+		entry.element = element;
+		entry.hash = hash;
+		return entry;
+	}
+
+	/** Doubles the table, splitting each chain between two buckets */
+	private void resize() {
+		Entry<E>[] old = table;
+		table = newTable(old.length * 2);
+		for (Entry<E> entry : old) {
+			while (entry != null) {
+				Entry<E> chain = entry.chain;
+				int bucket = entry.hash & (table.length - 1);
+				entry.chain = table[bucket];
+				table[bucket] = entry;
+				entry = chain;
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <E> Entry<E>[] newTable(int length) {
+		return (Entry<E>[]) new Entry[length];
+	}
+
+	/** Spreads the high bits of the hash code down, as HashMap does */
+	private static int hash(Object element) {
+		int h = element.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private void linkFirst(Entry<E> entry) {
+		entry.prev = null;
+		entry.next = head;
+		if (head == null) {
+			tail = entry;
+		} else {
+			head.prev = entry;
+		}
+		head = entry;
+	}
+
+	private void unlink(Entry<E> entry) {
+		if (entry.prev == null) {
+			head = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next == null) {
+			tail = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = entry.next = null;
+	}
+
+	/**
+	 * Converts the list to a readable string, most recently used first
+	 *
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		Entry<E> current = head;
+		str.append("[");
+		while (current != null) {
+			str.append(current.element.toString());
+			str.append(" , ");
+			current = current.next;
+		}
+		if (!isEmpty()) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	/**
+	 * Returns an iterator over the elements from most to least recently used.
+	 * The iterator is fail-fast.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new LRUIterator();
+	}
+
+	/**
+	 * An entry of the recency list, linked in place to its neighbours and
+	 * chained to the next entry in its bucket of the index
+	 */
+	private static class Entry<E> {
+		private E element;
+		private int hash;
+		private Entry<E> prev, next;
+		private Entry<E> chain;
+
+		private Entry(E element, int hash) {
+			this.element = element;
+			this.hash = hash;
+		}
+	}
+
+	/** Iterator for LRUList */
+	private class LRUIterator implements Iterator<E> {
+		private Entry<E> nextEntry;
+		private Entry<E> lastReturned;
+		private int iterModCount;
+
+		public LRUIterator() {
+			nextEntry = head;
+			lastReturned = null;
+			iterModCount = modCount;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iterModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			return (nextEntry != null);
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = nextEntry;
+			nextEntry = nextEntry.next;
+			return lastReturned.element;
+		}
+
+		@Override
+		public void remove() {
+			if (iterModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			delete(lastReturned);
+			lastReturned = null;
+			iterModCount++;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package cache;
+
+import java.util.Iterator;
+
+/**
+ * Least recently used replacement. A hit moves the item to the front of an
+ * LRUList and the item at the rear is evicted, all in constant time.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class LRUPolicy<E> implements EvictionPolicy<E> {
+	private LRUList<E> list;
+
+	/** Creates an empty policy */
+	public LRUPolicy() {
+		list = new LRUList<E>();
+	}
+
+	/**
+	 * Creates an empty policy sized for a cache of the given capacity.
+	 *
+	 * @param capacity the capacity of the cache
+	 */
+	public LRUPolicy(int capacity) {
+		list = new LRUList<E>(capacity);
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return list.contains(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		return list.moveToFront(e);
+	}
+
+	@Override
+	public void add(E e) {
+		list.addToFront(e);
+	}
+
+	@Override
+	public E evict() {
+		return list.removeLast();
+	}
+
+	@Override
+	public E victim() {
+		return list.isEmpty() ? null : list.last();
+	}
+
+	@Override
+	public void remove(E e) {
+		list.remove(e);
+	}
+
+	@Override
+	public int size() {
+		return list.size();
+	}
+
+	@Override
+	public void clear() {
+		list.clear();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return list.iterator();
+	}
+
+	public String toString() {
+		return list.toString();
+	}
+}
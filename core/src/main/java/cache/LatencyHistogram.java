@@ -0,0 +1,83 @@
+package cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds that many threads can record into
+ * at once. Latencies below 16 ns have a bucket each; above that every power of
+ * two is split into four buckets, so a bucket's bounds are within 25% of any
+ * latency in it, and 252 buckets cover every positive long. Each bucket is a
+ * LongAdder, so threads recording the same latency don't contend.
+ *
+ * @author chloejohnson
+ */
+public class LatencyHistogram {
+	static final int BUCKETS = 252;
+
+	private static final int LINEAR = 16;
+
+	private final LongAdder[] counts;
+
+	/** Creates an empty histogram */
+	public LatencyHistogram() {
+		counts = new LongAdder[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a latency. Negative latencies are recorded as 0.
+	 *
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		counts[bucket(nanos)].increment();
+	}
+
+	/**
+	 * Returns the count of every bucket. The counts are read one bucket at a
+	 * time, so latencies recorded meanwhile may be partly included.
+	 */
+	public long[] counts() {
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts[i].sum();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Empties the histogram.
+	 */
+	public void reset() {
+		for (LongAdder count : counts) {
+			count.reset();
+		}
+	}
+
+	/** Returns the bucket of a latency */
+	static int bucket(long nanos) {
+		if (nanos < LINEAR) {
+			return (int) Math.max(nanos, 0);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int quarter = (int) (nanos >>> (exponent - 2)) & 3;
+		return LINEAR + (exponent - 4) * 4 + quarter;
+	}
+
+	/** Returns the smallest latency in a bucket */
+	static long lowerBound(int bucket) {
+		if (bucket < LINEAR) {
+			return bucket;
+		}
+		int exponent = 4 + (bucket - LINEAR) / 4;
+		long quarter = (bucket - LINEAR) % 4;
+		return (4 + quarter) << (exponent - 2);
+	}
+
+	/** Returns the largest latency in a bucket */
+	static long upperBound(int bucket) {
+		return (bucket + 1 < BUCKETS) ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+	}
+}
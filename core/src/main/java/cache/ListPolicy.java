@@ -0,0 +1,101 @@
+package cache;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Least recently used replacement kept in an IndexedUnsortedList, most
+ * recently used first, so the recency rank of an item is its index in the
+ * list. Lookups and promotions scan the list; eviction is constant time when
+ * the list removes its last element in constant time, as IUDoubleLinkedList
+ * does.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class ListPolicy<E> implements EvictionPolicy<E> {
+	private IndexedUnsortedList<E> list;
+
+	/**
+	 * Creates a policy over the given list.
+	 *
+	 * @param list an empty list
+	 * @throws IllegalArgumentException if the list isn't empty
+	 */
+	public ListPolicy(IndexedUnsortedList<E> list) {
+		if (!list.isEmpty()) {
+			throw new IllegalArgumentException("The list backing a Cache must be empty");
+		}
+		this.list = list;
+	}
+
+	/**
+	 * Returns the list holding the items, most recently used first.
+	 *
+	 * @return the backing list
+	 */
+	public IndexedUnsortedList<E> getList() {
+		return list;
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return list.contains(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		// one scan: remove finds the item or throws on a miss
+		E found;
+		try {
+			found = list.remove(e);
+		} catch (NoSuchElementException ex) {
+			return false;
+		}
+		list.addToFront(found);
+		return true;
+	}
+
+	@Override
+	public void add(E e) {
+		list.addToFront(e);
+	}
+
+	@Override
+	public E evict() {
+		return list.removeLast();
+	}
+
+	@Override
+	public E victim() {
+		return list.isEmpty() ? null : list.last();
+	}
+
+	@Override
+	public void remove(E e) {
+		list.remove(e);
+	}
+
+	@Override
+	public int size() {
+		return list.size();
+	}
+
+	@Override
+	public void clear() {
+		// removeLast walks to the tail in IUSingleLinkedList, removeFirst never does
+		while (!list.isEmpty()) {
+			list.removeFirst();
+		}
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return list.iterator();
+	}
+
+	public String toString() {
+		return list.toString();
+	}
+}
@@ -0,0 +1,274 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Runs several threads against one IndexedUnsortedList at once, then checks
+ * that no element was lost, duplicated or put out of order. Each thread adds
+ * its own keys, to the front or the rear at random, checks with contains that
+ * each key is there, and removes about a third of them again, so it knows
+ * which of its keys should be left. Afterwards the list must hold exactly
+ * those keys, every key added to the front before every key added to the
+ * rear, and each thread's front keys newest first and its rear keys oldest
+ * first.
+ *
+ * A list that isn't thread-safe, such as IUSingleLinkedList, is run with every
+ * call made holding the list's lock, which is also the baseline a lock-free
+ * list should beat.
+ *
+ * @author chloejohnson
+ */
+public class ListStressDriver {
+	private static final int ADD_TO_FRONT = 0;
+	private static final int ADD_TO_REAR = 1;
+	private static final int CONTAINS = 2;
+	private static final int REMOVE = 3;
+
+	private final Supplier<? extends IndexedUnsortedList<Integer>> lists;
+	private final boolean synchronize;
+
+	/*
+	 * Creates a driver that stresses lists from the supplier, which must return
+	 * a new, empty list for every run. If synchronize is true every call is
+	 * made holding the list's lock.
+	 */
+	public ListStressDriver(Supplier<? extends IndexedUnsortedList<Integer>> lists, boolean synchronize) {
+		this.lists = lists;
+		this.synchronize = synchronize;
+	}
+
+	/**
+	 * Runs the threads against a new list and checks what is left in it.
+	 *
+	 * @param threads    the number of threads
+	 * @param operations the number of keys each thread adds
+	 * @return the throughput of the run and the first problem found, if any
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public Result run(int threads, int operations) throws InterruptedException {
+		if (threads < 1 || operations < 1 || (long) threads * operations > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The thread and operation counts must be positive");
+		}
+		IndexedUnsortedList<Integer> list = lists.get();
+		boolean[] front = new boolean[threads * operations];
+		boolean[] removed = new boolean[threads * operations];
+		long[] calls = new long[threads];
+		String[] failures = new String[threads];
+		CountDownLatch ready = new CountDownLatch(threads);
+		CountDownLatch go = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			workers[t] = new Thread(() -> {
+				ready.countDown();
+				try {
+					go.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					calls[thread] = stress(list, thread, operations, front, removed);
+				} catch (RuntimeException | AssertionError e) {
+					failures[thread] = "thread " + thread + " failed: " + e;
+				}
+			});
+			workers[t].start();
+		}
+		ready.await();
+		long start = System.nanoTime();
+		go.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long totalCalls = 0;
+		String failure = null;
+		for (int t = 0; t < threads; t++) {
+			totalCalls += calls[t];
+			if (failure == null) {
+				failure = failures[t];
+			}
+		}
+		if (failure == null) {
+			failure = check(list, threads, operations, front, removed);
+		}
+		return new Result(threads, totalCalls, elapsed, failure);
+	}
+
+	/**
+	 * Adds, looks up and removes one thread's keys, and returns the number of
+	 * calls made on the list.
+	 */
+	private long stress(IndexedUnsortedList<Integer> list, int thread, int operations, boolean[] front,
+			boolean[] removed) {
+		Random random = new Random(thread);
+		ArrayList<Integer> present = new ArrayList<Integer>();
+		long calls = 0;
+		for (int i = 0; i < operations; i++) {
+			Integer key = thread * operations + i;
+			front[key] = random.nextBoolean();
+			call(list, front[key] ? ADD_TO_FRONT : ADD_TO_REAR, key);
+			present.add(key);
+			if (!call(list, CONTAINS, key)) {
+				throw new AssertionError(key + " was added but isn't in the list");
+			}
+			calls += 2;
+			if (random.nextInt(3) == 0) {
+				int j = random.nextInt(present.size());
+				Integer victim = present.get(j);
+				present.set(j, present.get(present.size() - 1));
+				present.remove(present.size() - 1);
+				if (!call(list, REMOVE, victim)) {
+					throw new AssertionError("removing " + victim + " returned another element");
+				}
+				removed[victim] = true;
+				if (call(list, CONTAINS, victim)) {
+					throw new AssertionError(victim + " was removed but is still in the list");
+				}
+				calls += 2;
+			}
+		}
+		return calls;
+	}
+
+	/**
+	 * Makes one call on the list, holding its lock if the driver synchronizes.
+	 */
+	private boolean call(IndexedUnsortedList<Integer> list, int operation, Integer key) {
+		if (synchronize) {
+			synchronized (list) {
+				return apply(list, operation, key);
+			}
+		}
+		return apply(list, operation, key);
+	}
+
+	private static boolean apply(IndexedUnsortedList<Integer> list, int operation, Integer key) {
+		switch (operation) {
+		case ADD_TO_FRONT:
+			list.addToFront(key);
+			return true;
+		case ADD_TO_REAR:
+			list.addToRear(key);
+			return true;
+		case REMOVE:
+			return list.remove(key).equals(key);
+		default:
+			return list.contains(key);
+		}
+	}
+
+	/**
+	 * Returns a description of the first thing wrong with what is left in the
+	 * list, or null if it holds exactly the keys that weren't removed, in an
+	 * order the threads could have produced.
+	 */
+	private static String check(IndexedUnsortedList<Integer> list, int threads, int operations, boolean[] front,
+			boolean[] removed) {
+		boolean[] seen = new boolean[front.length];
+		int[] lastFront = new int[threads];
+		int[] lastRear = new int[threads];
+		for (int t = 0; t < threads; t++) {
+			lastFront[t] = operations;
+			lastRear[t] = -1;
+		}
+		boolean pastFront = false;
+		int count = 0;
+		Iterator<Integer> it = list.iterator();
+		while (it.hasNext()) {
+			Integer key = it.next();
+			if (key == null || key < 0 || key >= front.length) {
+				return "the list holds " + key + ", which no thread added";
+			}
+			if (removed[key]) {
+				return key + " was removed but is still in the list";
+			}
+			if (seen[key]) {
+				return key + " is in the list twice";
+			}
+			seen[key] = true;
+			count++;
+			int thread = key / operations;
+			int index = key % operations;
+			if (front[key]) {
+				if (pastFront) {
+					return key + " was added to the front but follows a key added to the rear";
+				}
+				if (index > lastFront[thread]) {
+					return key + " was added to the front before a key it precedes";
+				}
+				lastFront[thread] = index;
+			} else {
+				pastFront = true;
+				if (index < lastRear[thread]) {
+					return key + " was added to the rear after a key it follows";
+				}
+				lastRear[thread] = index;
+			}
+		}
+		for (int key = 0; key < front.length; key++) {
+			if (!removed[key] && !seen[key]) {
+				return key + " was never removed but is missing from the list";
+			}
+		}
+		if (list.size() != count) {
+			return "size is " + list.size() + " but the list holds " + count + " keys";
+		}
+		return null;
+	}
+
+	/**
+	 * The outcome of one run: its throughput, and the first problem found in
+	 * the list, if any.
+	 */
+	public static final class Result {
+		private final int threads;
+		private final long calls;
+		private final long elapsedNanos;
+		private final String failure;
+
+		Result(int threads, long calls, long elapsedNanos, String failure) {
+			this.threads = threads;
+			this.calls = calls;
+			this.elapsedNanos = elapsedNanos;
+			this.failure = failure;
+		}
+
+		/**
+		 * Returns the number of threads.
+		 */
+		public int threads() {
+			return threads;
+		}
+
+		/**
+		 * Returns the calls made on the list per second, by all threads together.
+		 */
+		public double throughput() {
+			return calls * 1e9 / Math.max(1, elapsedNanos);
+		}
+
+		/**
+		 * Returns true if the run found nothing wrong.
+		 */
+		public boolean passed() {
+			return failure == null;
+		}
+
+		/**
+		 * Returns a description of the first problem found, or null if none was.
+		 */
+		public String failure() {
+			return failure;
+		}
+
+		public String toString() {
+			return String.format("%-8d %-14.0f %s", threads, throughput(), passed() ? "ok" : failure);
+		}
+	}
+}
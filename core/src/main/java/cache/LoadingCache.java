@@ -0,0 +1,426 @@
+package cache;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe read-through cache of key-value pairs. A search for a key that
+ * isn't cached runs the CacheLoader to compute its value, and the pair is
+ * cached until the key is evicted.
+ *
+ * Loads are single-flight: the first thread to miss on a key installs a
+ * future for its value and loads it, and every other thread asking for the key
+ * meanwhile waits on the same future, so a hot key that is evicted reaches
+ * the loader once rather than once per waiting thread. A failed load, or one
+ * that finds no value, is not cached, so the next search tries again.
+ *
+ * A CacheWriter can be given to keep a backing store up to date: put and
+ * invalidate pass the change to the writer before they change the cache, and
+ * if the writer fails the cache is left as it was. The store's own writer
+ * writes through, and a WriteBehindWriter around it writes behind. Evictions
+ * and invalidateAll only drop cached copies, so they aren't passed on.
+ *
+ * Changes to one key are applied in the same order to the writer and the
+ * cache: each key maps to one of a fixed set of locks, held from the writer
+ * call until the cache is updated, so two puts, or a put and an invalidate,
+ * can't reach the store in one order and the cache in the other. putAll takes
+ * the locks of all its keys, in ascending order so that two of them can't
+ * deadlock. A slow writer only holds up changes to keys sharing its locks.
+ *
+ * Which keys stay is decided by a ConcurrentCache of the keys; when it evicts
+ * a key, the key's value is dropped. Searches count in its statistics, and a
+ * search that finds its key already loading counts as a hit, since it doesn't
+ * reach the loader.
+ *
+ * @author chloejohnson
+ *
+ * @param <K> class of keys
+ * @param <V> class of values
+ */
+public class LoadingCache<K, V> {
+	// the number of locks ordering the changes passed to the writer
+	private static final int WRITE_LOCKS = 64;
+
+	private final ConcurrentCache<K> keys;
+	private final ConcurrentHashMap<K, CompletableFuture<V>> values;
+	private final CacheLoader<K, V> loader;
+	private final CacheWriter<K, V> writer;
+	private final Executor executor;
+	private final ReentrantLock[] writeLocks;
+
+	/*
+	 * Creates a new LoadingCache of a specified size whose asynchronous loads
+	 * run in the common fork-join pool.
+	 */
+	public LoadingCache(int size, CacheLoader<K, V> loader) {
+		this(size, loader, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Creates a new LoadingCache of a specified size whose asynchronous loads
+	 * run on the given executor.
+	 */
+	public LoadingCache(int size, CacheLoader<K, V> loader, Executor executor) {
+		this(size, loader, null, executor);
+	}
+
+	/*
+	 * Creates a new LoadingCache of a specified size that passes its changes
+	 * to the writer and whose asynchronous loads run in the common fork-join
+	 * pool.
+	 */
+	public LoadingCache(int size, CacheLoader<K, V> loader, CacheWriter<K, V> writer) {
+		this(size, loader, writer, ForkJoinPool.commonPool());
+	}
+
+	/*
+	 * Creates a new LoadingCache of a specified size that passes its changes
+	 * to the writer, which may be null for none, and whose asynchronous loads
+	 * run on the given executor.
+	 */
+	public LoadingCache(int size, CacheLoader<K, V> loader, CacheWriter<K, V> writer, Executor executor) {
+		this.loader = Objects.requireNonNull(loader);
+		this.writer = writer;
+		this.executor = Objects.requireNonNull(executor);
+		values = new ConcurrentHashMap<K, CompletableFuture<V>>();
+		writeLocks = new ReentrantLock[WRITE_LOCKS];
+		for (int i = 0; i < WRITE_LOCKS; i++) {
+			writeLocks[i] = new ReentrantLock();
+		}
+		keys = new ConcurrentCache<K>(size, 4 * Runtime.getRuntime().availableProcessors(), values::remove);
+	}
+
+	/**
+	 * Returns the value of a key, loading it in this thread if it isn't cached
+	 * or waiting for it if another thread is loading it.
+	 *
+	 * @param key
+	 * @return the value, or null if the loader found none
+	 * @throws CacheLoaderException if the loader threw a checked exception;
+	 *                              unchecked exceptions are rethrown as they are
+	 */
+	public V get(K key) {
+		keys.search(key);
+		CompletableFuture<V> future = values.get(key);
+		if (future == null) {
+			CompletableFuture<V> created = new CompletableFuture<V>();
+			future = values.putIfAbsent(key, created);
+			if (future == null) {
+				future = created;
+				track(key);
+				try {
+					complete(key, created, loader.load(key));
+				} catch (Throwable t) {
+					fail(key, created, t);
+				}
+			}
+		}
+		return join(key, future);
+	}
+
+	/**
+	 * Returns a future for the value of a key. If the key isn't cached or
+	 * loading, the loader's asyncLoad is started.
+	 *
+	 * @param key
+	 * @return a future completed with the value, or null if the loader found
+	 *         none, or completed exceptionally if the load fails
+	 */
+	public CompletableFuture<V> getAsync(K key) {
+		keys.search(key);
+		CompletableFuture<V> future = values.get(key);
+		if (future == null) {
+			CompletableFuture<V> created = new CompletableFuture<V>();
+			future = values.putIfAbsent(key, created);
+			if (future == null) {
+				future = created;
+				track(key);
+				try {
+					loader.asyncLoad(key, executor).whenComplete((value, error) -> {
+						if (error != null) {
+							fail(key, created, (error instanceof CompletionException && error.getCause() != null)
+									? error.getCause()
+									: error);
+						} else {
+							complete(key, created, value);
+						}
+					});
+				} catch (Throwable t) {
+					fail(key, created, t);
+				}
+			}
+		}
+		// callers get a copy so that completing or cancelling it can't affect the cache
+		return future.copy();
+	}
+
+	/**
+	 * Returns the values of several keys. The keys that aren't cached or already
+	 * loading are loaded together with one call to the loader's loadAll.
+	 *
+	 * @param keys the keys to look up
+	 * @return the keys that have values, with their values, in the order given
+	 * @throws CacheLoaderException if the loader threw a checked exception;
+	 *                              unchecked exceptions are rethrown as they are
+	 */
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		Map<K, CompletableFuture<V>> futures = new LinkedHashMap<K, CompletableFuture<V>>();
+		Map<K, CompletableFuture<V>> owned = new LinkedHashMap<K, CompletableFuture<V>>();
+		for (K key : keys) {
+			if (futures.containsKey(key)) {
+				continue;
+			}
+			this.keys.search(key);
+			CompletableFuture<V> future = values.get(key);
+			if (future == null) {
+				CompletableFuture<V> created = new CompletableFuture<V>();
+				future = values.putIfAbsent(key, created);
+				if (future == null) {
+					future = created;
+					owned.put(key, created);
+					track(key);
+				}
+			}
+			futures.put(key, future);
+		}
+		if (!owned.isEmpty()) {
+			try {
+				Map<K, V> loaded = loader.loadAll(Collections.unmodifiableSet(owned.keySet()));
+				for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+					complete(entry.getKey(), entry.getValue(), loaded.get(entry.getKey()));
+				}
+			} catch (Throwable t) {
+				for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+					fail(entry.getKey(), entry.getValue(), t);
+				}
+			}
+		}
+		Map<K, V> result = new LinkedHashMap<K, V>();
+		for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+			V value = join(entry.getKey(), entry.getValue());
+			if (value != null) {
+				result.put(entry.getKey(), value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of a key if it is cached and loaded, without loading it
+	 * or counting as a search.
+	 *
+	 * @param key
+	 * @return the value, or null
+	 */
+	public V getIfPresent(K key) {
+		CompletableFuture<V> future = values.get(key);
+		if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+			return null;
+		}
+		return future.getNow(null);
+	}
+
+	/**
+	 * Caches a value for a key, replacing any value it had, after passing it to
+	 * the writer. Threads waiting for a load of the key that was already
+	 * running still get the loaded value.
+	 *
+	 * @param key
+	 * @param value
+	 * @throws CacheWriterException if the writer threw a checked exception;
+	 *                              unchecked exceptions are rethrown as they are
+	 */
+	public void put(K key, V value) {
+		Objects.requireNonNull(value);
+		ReentrantLock lock = writeLockOf(key);
+		lock.lock();
+		try {
+			if (writer != null) {
+				try {
+					writer.write(key, value);
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new CacheWriterException("Couldn't write " + key, e);
+				}
+			}
+			values.put(key, CompletableFuture.completedFuture(value));
+		} finally {
+			lock.unlock();
+		}
+		keys.addObject(key);
+	}
+
+	/**
+	 * Caches the values of several keys, after passing them to the writer
+	 * together with one call to its writeAll. The keys are written and cached
+	 * in the map's iteration order, and no other change to them is passed to
+	 * the writer in between.
+	 *
+	 * @param entries the keys and their values
+	 * @throws CacheWriterException if the writer threw a checked exception;
+	 *                              unchecked exceptions are rethrown as they are
+	 */
+	public void putAll(Map<? extends K, ? extends V> entries) {
+		BitSet locks = new BitSet(WRITE_LOCKS);
+		for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+			Objects.requireNonNull(entry.getValue());
+			locks.set(writeLockIndex(entry.getKey()));
+		}
+		for (int i = locks.nextSetBit(0); i >= 0; i = locks.nextSetBit(i + 1)) {
+			writeLocks[i].lock();
+		}
+		try {
+			if (writer != null) {
+				try {
+					writer.writeAll(entries);
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new CacheWriterException("Couldn't write " + entries.size() + " keys", e);
+				}
+			}
+			for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+				values.put(entry.getKey(), CompletableFuture.completedFuture(entry.getValue()));
+			}
+		} finally {
+			for (int i = locks.nextSetBit(0); i >= 0; i = locks.nextSetBit(i + 1)) {
+				writeLocks[i].unlock();
+			}
+		}
+		keys.putAll(entries.keySet());
+	}
+
+	/**
+	 * Removes a key and its value, after passing the delete to the writer.
+	 *
+	 * @param key
+	 * @throws CacheWriterException if the writer threw a checked exception;
+	 *                              unchecked exceptions are rethrown as they are
+	 */
+	public void invalidate(K key) {
+		ReentrantLock lock = writeLockOf(key);
+		lock.lock();
+		try {
+			if (writer != null) {
+				try {
+					writer.delete(key);
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new CacheWriterException("Couldn't delete " + key, e);
+				}
+			}
+			// the key goes first: a get that installs a future after this
+			// finds the key gone and tracks it again, and one that installed
+			// a future before it loses that future below
+			try {
+				keys.removeObject(key);
+			} catch (NoSuchElementException e) {
+				// already evicted or never cached
+			}
+			values.remove(key);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all keys and values from the cache. The writer isn't told, since
+	 * the store keeps them.
+	 */
+	public void invalidateAll() {
+		keys.clearCache();
+		values.clear();
+	}
+
+	/**
+	 * Returns true if the key is cached, even if its value is still loading.
+	 * Does not count as a search.
+	 */
+	public boolean contains(K key) {
+		return values.containsKey(key);
+	}
+
+	/**
+	 * Returns the number of cached keys.
+	 */
+	public int size() {
+		return keys.size();
+	}
+
+	/**
+	 * Returns the maximum number of cached keys.
+	 */
+	public int capacity() {
+		return keys.capacity();
+	}
+
+	/**
+	 * Returns a snapshot of the counts of the searches so far.
+	 */
+	public CacheStats stats() {
+		return keys.stats();
+	}
+
+	/**
+	 * Makes sure a key whose future was just installed is in the key cache. The
+	 * search before it normally added the key, but it may have been evicted
+	 * since, and a value whose key isn't cached would never be dropped.
+	 */
+	private void track(K key) {
+		if (!keys.contains(key)) {
+			keys.addObject(key);
+		}
+	}
+
+	/** Returns the lock that orders the changes to a key */
+	private ReentrantLock writeLockOf(K key) {
+		return writeLocks[writeLockIndex(key)];
+	}
+
+	private static int writeLockIndex(Object key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (WRITE_LOCKS - 1);
+	}
+
+	/** Completes a load, dropping the future if there is no value */
+	private void complete(K key, CompletableFuture<V> future, V value) {
+		if (value == null) {
+			values.remove(key, future);
+		}
+		future.complete(value);
+	}
+
+	/** Fails a load, dropping the future so that the next search retries */
+	private void fail(K key, CompletableFuture<V> future, Throwable error) {
+		values.remove(key, future);
+		future.completeExceptionally(error);
+	}
+
+	/** Waits for a value, rethrowing the loader's exception */
+	private static <K, V> V join(K key, CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CacheLoaderException("Couldn't load " + key, cause);
+		}
+	}
+}
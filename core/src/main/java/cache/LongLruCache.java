@@ -0,0 +1,282 @@
+package cache;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A least recently used cache of long keys, such as hashed word IDs, that
+ * never boxes a key. It works the same way as IntLruCache, with the keys kept
+ * in a long array.
+ *
+ * Entry i of the list is stored at keys[i], prev[i] and next[i], with -1 for
+ * no entry. The index holds entry number plus one, so 0 marks an empty slot,
+ * and is kept at most half full. A removed key is deleted by shifting the
+ * keys after it back, so the index never fills with tombstones.
+ *
+ * @author chloejohnson
+ */
+public class LongLruCache {
+	private static final int NONE = -1;
+
+	private final int size;
+	private final long[] keys;
+	private final int[] prev;
+	private final int[] next;
+	private final int[] index;
+	private final int mask;
+	private int head;
+	private int tail;
+	private int count;
+	// entries freed by removeObject, linked through next
+	private int free;
+
+	/**
+	 * Creates a new least recently used cache of a specified size.
+	 *
+	 * @param size the maximum number of keys
+	 * @throws IllegalArgumentException if the size isn't positive
+	 */
+	public LongLruCache(int size) {
+		if (size <= 0 || size > (1 << 29)) {
+			throw new IllegalArgumentException("The size must be between 1 and 2^29");
+		}
+		this.size = size;
+		keys = new long[size];
+		prev = new int[size];
+		next = new int[size];
+		index = new int[Integer.highestOneBit(size - 1 | 1) << 2];
+		mask = index.length - 1;
+		clearCache();
+	}
+
+	/**
+	 * Searches the cache for the key. A hit moves the key to the front; a miss
+	 * adds it, evicting the least recently used key if the cache is full.
+	 *
+	 * @param key
+	 * @return 1 for a hit, 0 for a miss
+	 */
+	public int search(long key) {
+		int entry = find(key);
+		if (entry != NONE) {
+			moveEntryToFront(entry);
+			return 1;
+		}
+		insert(key);
+		return 0;
+	}
+
+	/**
+	 * Adds a key to the cache, evicting the least recently used key if the cache
+	 * is full. If the key is already cached it is only moved to the front.
+	 *
+	 * @param key
+	 * @return true if a key was evicted
+	 */
+	public boolean addObject(long key) {
+		int entry = find(key);
+		if (entry != NONE) {
+			moveEntryToFront(entry);
+			return false;
+		}
+		return insert(key);
+	}
+
+	/**
+	 * Removes the key from the cache.
+	 *
+	 * @param key
+	 * @return true if the key was cached
+	 */
+	public boolean removeObject(long key) {
+		int slot = slotOf(key);
+		if (index[slot] == 0) {
+			return false;
+		}
+		int entry = index[slot] - 1;
+		deleteSlot(slot);
+		unlink(entry);
+		next[entry] = free;
+		free = entry;
+		count--;
+		return true;
+	}
+
+	/**
+	 * Removes the least recently used key.
+	 *
+	 * @return the key removed
+	 * @throws NoSuchElementException if the cache is empty
+	 */
+	public long removeLast() {
+		if (count == 0) {
+			throw new NoSuchElementException();
+		}
+		long key = keys[tail];
+		removeObject(key);
+		return key;
+	}
+
+	/**
+	 * Moves the key to the front of the list.
+	 *
+	 * @throws NoSuchElementException if the key isn't cached
+	 */
+	public void moveToFront(long key) {
+		int entry = find(key);
+		if (entry == NONE) {
+			throw new NoSuchElementException();
+		}
+		moveEntryToFront(entry);
+	}
+
+	/**
+	 * Returns true if the key is cached. Does not count as a hit.
+	 */
+	public boolean contains(long key) {
+		return find(key) != NONE;
+	}
+
+	/**
+	 * Returns the number of cached keys.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the maximum number of cached keys.
+	 */
+	public int capacity() {
+		return size;
+	}
+
+	/**
+	 * Removes all keys from the cache.
+	 */
+	public void clearCache() {
+		Arrays.fill(index, 0);
+		head = NONE;
+		tail = NONE;
+		count = 0;
+		// entries that have never been used are handed out in order
+		for (int i = 0; i < size; i++) {
+			next[i] = (i + 1 < size) ? i + 1 : NONE;
+		}
+		free = 0;
+	}
+
+	/**
+	 * Lists the keys, most recently used first.
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("[");
+		for (int entry = head; entry != NONE; entry = next[entry]) {
+			str.append(keys[entry]);
+			str.append(" , ");
+		}
+		if (str.length() > 1) {
+			str.delete(str.length() - 2, str.length());
+		}
+		str.append("]");
+		return str.toString();
+	}
+
+	/**
+	 * Adds a key that isn't cached at the front, reusing the least recently
+	 * used entry if the cache is full.
+	 *
+	 * @return true if a key was evicted
+	 */
+	private boolean insert(long key) {
+		int entry;
+		boolean evicted = false;
+		if (count == size) {
+			entry = tail;
+			deleteSlot(slotOf(keys[entry]));
+			unlink(entry);
+			evicted = true;
+		} else {
+			entry = free;
+			free = next[entry];
+			count++;
+		}
+		keys[entry] = key;
+		index[slotOf(key)] = entry + 1;
+		linkFirst(entry);
+		return evicted;
+	}
+
+	/** Returns the entry holding the key, or NONE */
+	private int find(long key) {
+		return index[slotOf(key)] - 1;
+	}
+
+	/** Returns the index slot that holds the key, or the empty slot where it belongs */
+	private int slotOf(long key) {
+		int slot = spread(key) & mask;
+		while (index[slot] != 0 && keys[index[slot] - 1] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Empties an index slot, moving back any later key in the same run that
+	 * would otherwise no longer be found.
+	 */
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & mask;
+			if (index[current] == 0) {
+				break;
+			}
+			int home = spread(keys[index[current] - 1]) & mask;
+			// the key can fill the hole unless its home lies after the hole
+			if (((current - home) & mask) >= ((current - hole) & mask)) {
+				index[hole] = index[current];
+				hole = current;
+			}
+		}
+		index[hole] = 0;
+	}
+
+	private void moveEntryToFront(int entry) {
+		if (entry != head) {
+			unlink(entry);
+			linkFirst(entry);
+		}
+	}
+
+	private void linkFirst(int entry) {
+		prev[entry] = NONE;
+		next[entry] = head;
+		if (head != NONE) {
+			prev[head] = entry;
+		} else {
+			tail = entry;
+		}
+		head = entry;
+	}
+
+	private void unlink(int entry) {
+		if (prev[entry] != NONE) {
+			next[prev[entry]] = next[entry];
+		} else {
+			head = next[entry];
+		}
+		if (next[entry] != NONE) {
+			prev[next[entry]] = prev[entry];
+		} else {
+			tail = prev[entry];
+		}
+	}
+
+	private static int spread(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+}
@@ -0,0 +1,273 @@
+package cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the whitespace-separated words of a trace file by memory-mapping it,
+ * as a faster replacement for java.util.Scanner. The file is mapped one window
+ * at a time, so files of any size stream through a bounded amount of address
+ * space, and words are tokenized straight from the mapped bytes without
+ * regular expressions.
+ *
+ * Words are separated by the same characters as Scanner's default delimiter,
+ * those for which Character.isWhitespace is true, and are decoded as UTF-8.
+ * Repeated words are returned as the same String instance, looked up by their
+ * bytes, so a word is only decoded and allocated the first time it is seen.
+ *
+ * @author chloejohnson
+ */
+public class MappedTraceReader implements Iterator<String>, Closeable {
+	private static final int DEFAULT_WINDOW = 1 << 26;
+	// the longest whitespace character in UTF-8 is three bytes
+	private static final int LOOKAHEAD = 3;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long length;
+	private final int window;
+	private final TokenTable tokens;
+
+	private MappedByteBuffer buffer;
+	private long base;
+	private int pos;
+	private boolean tokenReady;
+
+	/**
+	 * Opens a trace file for reading.
+	 *
+	 * @param textInput the trace file
+	 * @throws FileNotFoundException if the file doesn't exist
+	 * @throws IOException           if the file can't be mapped
+	 */
+	public MappedTraceReader(File textInput) throws IOException {
+		this(textInput, DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Opens a trace file with a given window size, which must be larger than
+	 * the longest word.
+	 */
+	MappedTraceReader(File textInput, int window) throws IOException {
+		file = new RandomAccessFile(textInput, "r");
+		channel = file.getChannel();
+		length = channel.size();
+		this.window = window;
+		tokens = new TokenTable();
+		remap(0);
+		pos = 0;
+		tokenReady = false;
+	}
+
+	/**
+	 * Returns true if there is another word.
+	 *
+	 * @throws UncheckedIOException if the file can't be read
+	 */
+	@Override
+	public boolean hasNext() {
+		if (!tokenReady) {
+			try {
+				tokenReady = skipWhitespace();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return tokenReady;
+	}
+
+	/**
+	 * Returns the next word.
+	 *
+	 * @throws NoSuchElementException if there are no more words
+	 * @throws UncheckedIOException   if the file can't be read
+	 */
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		tokenReady = false;
+		try {
+			return readToken();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes the file. The mapping itself is released by the garbage collector.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Moves past whitespace to the start of the next word.
+	 *
+	 * @return false at the end of the file
+	 */
+	private boolean skipWhitespace() throws IOException {
+		while (true) {
+			if (!ensureAvailable()) {
+				return false;
+			}
+			int skip = whitespaceLength();
+			if (skip == 0) {
+				return true;
+			}
+			pos += skip;
+		}
+	}
+
+	/**
+	 * Reads the word starting at pos. If the word runs past the end of the
+	 * window, the window is moved to start at the word.
+	 */
+	private String readToken() throws IOException {
+		int start = pos;
+		int hash = 0;
+		while (true) {
+			if (pos + LOOKAHEAD > buffer.limit() && base + buffer.limit() < length) {
+				if (start == 0) {
+					throw new IOException("A word at offset " + base + " is longer than the mapping window");
+				}
+				remap(base + start);
+				pos -= start;
+				start = 0;
+			}
+			if (pos >= buffer.limit() || whitespaceLength() > 0) {
+				break;
+			}
+			hash = 31 * hash + buffer.get(pos);
+			pos++;
+		}
+		return tokens.get(buffer, start, pos - start, hash);
+	}
+
+	/**
+	 * Makes sure the window holds the bytes at and shortly after pos, moving
+	 * the window forward if needed.
+	 *
+	 * @return false if pos is at the end of the file
+	 */
+	private boolean ensureAvailable() throws IOException {
+		if (pos + LOOKAHEAD > buffer.limit() && base + buffer.limit() < length) {
+			remap(base + pos);
+			pos = 0;
+		}
+		return pos < buffer.limit();
+	}
+
+	/**
+	 * Returns the number of bytes of the whitespace character at pos, or 0 if
+	 * there is none.
+	 */
+	private int whitespaceLength() {
+		int b = buffer.get(pos) & 0xFF;
+		if (b < 0x80) {
+			return (b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F)) ? 1 : 0;
+		}
+		// U+1680, U+2000 to U+205F and U+3000 are the only other whitespace
+		if (b >= 0xE1 && b <= 0xE3 && pos + 2 < buffer.limit()) {
+			int b1 = buffer.get(pos + 1) & 0xFF;
+			int b2 = buffer.get(pos + 2) & 0xFF;
+			if ((b1 & 0xC0) == 0x80 && (b2 & 0xC0) == 0x80) {
+				int codePoint = ((b & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+				return Character.isWhitespace(codePoint) ? 3 : 0;
+			}
+		}
+		return 0;
+	}
+
+	private void remap(long offset) throws IOException {
+		long size = Math.min(window, length - offset);
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		base = offset;
+	}
+
+	/**
+	 * An open-addressing table from the bytes of a word to its String. The
+	 * table stops growing at a million words; after that, new words are decoded
+	 * every time they are read.
+	 */
+	private static class TokenTable {
+		private static final int MAXIMUM_WORDS = 1 << 20;
+
+		private byte[][] keys = new byte[1024][];
+		private String[] values = new String[1024];
+		private int[] hashes = new int[1024];
+		private int count = 0;
+
+		String get(MappedByteBuffer buffer, int start, int length, int hash) {
+			int mask = keys.length - 1;
+			int slot = spread(hash) & mask;
+			while (keys[slot] != null) {
+				if (hashes[slot] == hash && matches(keys[slot], buffer, start, length)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			byte[] bytes = new byte[length];
+			buffer.get(start, bytes);
+			String word = new String(bytes, StandardCharsets.UTF_8);
+			if (count < MAXIMUM_WORDS) {
+				keys[slot] = bytes;
+				values[slot] = word;
+				hashes[slot] = hash;
+				if (++count > keys.length / 2) {
+					resize();
+				}
+			}
+			return word;
+		}
+
+		private static boolean matches(byte[] key, MappedByteBuffer buffer, int start, int length) {
+			if (key.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (key[i] != buffer.get(start + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void resize() {
+			byte[][] oldKeys = keys;
+			String[] oldValues = values;
+			int[] oldHashes = hashes;
+			keys = new byte[oldKeys.length * 2][];
+			values = new String[keys.length];
+			hashes = new int[keys.length];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = spread(oldHashes[i]) & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+					hashes[slot] = oldHashes[i];
+				}
+			}
+		}
+
+		private static int spread(int h) {
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			return (h >>> 16) ^ h;
+		}
+	}
+}
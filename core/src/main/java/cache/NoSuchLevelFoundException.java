@@ -1,3 +1,4 @@
+package cache;
 
 public class NoSuchLevelFoundException extends Exception {
 
@@ -1,3 +1,5 @@
+package cache;
+
 /**
  * LinearNode represents a node in a linked list.
  *
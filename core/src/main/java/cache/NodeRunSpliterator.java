@@ -0,0 +1,111 @@
+package cache;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Spliterator over a run of linked nodes, given by the first node and the
+ * number of nodes in the run, for lists whose nodes can only be reached by
+ * following next links. It splits by walking to the middle of the run, so the
+ * halves are the same size. The list's modCount is compared after every
+ * tryAdvance and once after forEachRemaining.
+ *
+ * @author chloejohnson
+ *
+ * @param <N> type of node
+ * @param <T> type of element
+ */
+final class NodeRunSpliterator<N, T> implements Spliterator<T> {
+	private final UnaryOperator<N> next;
+	private final Function<N, T> element;
+	private final IntSupplier modCount;
+	private final int expectedModCount;
+	private N current;
+	private int remaining;
+
+	/*
+	 * Creates a spliterator over count nodes starting at first, which reads each
+	 * node with next and element and expects the list's modCount to stay as it
+	 * is now.
+	 */
+	NodeRunSpliterator(N first, int count, UnaryOperator<N> next, Function<N, T> element, IntSupplier modCount) {
+		this(first, count, next, element, modCount, modCount.getAsInt());
+	}
+
+	/* Creates the first half of a split */
+	private NodeRunSpliterator(N first, int count, UnaryOperator<N> next, Function<N, T> element,
+			IntSupplier modCount, int expectedModCount) {
+		current = first;
+		remaining = count;
+		this.next = next;
+		this.element = element;
+		this.modCount = modCount;
+		this.expectedModCount = expectedModCount;
+	}
+
+	private void checkForComodification() {
+		if (modCount.getAsInt() != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		if (remaining <= 0 || current == null) {
+			return false;
+		}
+		T value = element.apply(current);
+		current = next.apply(current);
+		remaining--;
+		action.accept(value);
+		checkForComodification();
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		N node = current;
+		int count = remaining;
+		current = null;
+		remaining = 0;
+		for (; count > 0 && node != null; count--) {
+			action.accept(element.apply(node));
+			node = next.apply(node);
+		}
+		checkForComodification();
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		int half = remaining >>> 1;
+		if (half == 0) {
+			return null;
+		}
+		N first = current;
+		for (int i = 0; i < half; i++) {
+			current = next.apply(current);
+		}
+		remaining -= half;
+		return new NodeRunSpliterator<N, T>(first, half, next, element, modCount, expectedModCount);
+	}
+
+	@Override
+	public long estimateSize() {
+		return remaining;
+	}
+
+	@Override
+	public int characteristics() {
+		return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+	}
+}
@@ -0,0 +1,200 @@
+package cache;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Estimates how many bytes an object and everything reachable from it take up
+ * on the heap, for weighing cache items automatically. The object graph is
+ * walked with reflection and each object is counted once, as the size of its
+ * header and fields rounded up to eight bytes, which is how HotSpot lays
+ * objects out.
+ *
+ * The JDK's own classes can't be read by reflection, so Strings are sized
+ * from their length, Collections and Maps from their elements with a fixed
+ * cost per element, and other JDK objects by their shallow size only. The
+ * result is an estimate: close for plain data classes and Strings, and
+ * usually an underestimate for objects built from other JDK internals.
+ *
+ * @author chloejohnson
+ */
+public final class ObjectSizeEstimator {
+	private static final boolean COMPRESSED = compressedReferences();
+	private static final int REFERENCE = COMPRESSED ? 4 : 8;
+	private static final int HEADER = COMPRESSED ? 12 : 16;
+	private static final int ARRAY_HEADER = COMPRESSED ? 16 : 24;
+	// a HashMap node or a linked list node holds a hash or links and the element
+	private static final int ELEMENT_OVERHEAD = align(HEADER + 4 + 3 * REFERENCE);
+
+	private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+		@Override
+		protected Layout computeValue(Class<?> type) {
+			return new Layout(type);
+		}
+	};
+
+	private ObjectSizeEstimator() {
+	}
+
+	/**
+	 * Returns the estimated size in bytes of an object and every object it
+	 * refers to, directly or indirectly.
+	 *
+	 * @param root the object, or null for a size of 0
+	 * @return the estimated size in bytes
+	 */
+	public static long sizeOf(Object root) {
+		if (root == null) {
+			return 0;
+		}
+		IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+		ArrayDeque<Object> pending = new ArrayDeque<Object>();
+		visited.put(root, Boolean.TRUE);
+		pending.push(root);
+		long size = 0;
+		while (!pending.isEmpty()) {
+			Object o = pending.pop();
+			size += shallowSizeOf(o);
+			for (Object child : children(o)) {
+				if (child != null && visited.put(child, Boolean.TRUE) == null) {
+					pending.push(child);
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of an object itself, not counting
+	 * the objects it refers to, except the character array of a String.
+	 *
+	 * @param o the object
+	 * @return the estimated size in bytes
+	 */
+	public static long shallowSizeOf(Object o) {
+		Class<?> type = o.getClass();
+		if (type.isArray()) {
+			Class<?> component = type.getComponentType();
+			int width = component.isPrimitive() ? primitiveSize(component) : REFERENCE;
+			return align(ARRAY_HEADER + (long) Array.getLength(o) * width);
+		}
+		if (o instanceof String) {
+			String s = (String) o;
+			return LAYOUTS.get(String.class).size + align(ARRAY_HEADER + (long) s.length() * coder(s));
+		}
+		if (o instanceof Collection || o instanceof Map) {
+			int count = (o instanceof Map) ? ((Map<?, ?>) o).size() : ((Collection<?>) o).size();
+			return LAYOUTS.get(type).size + (long) count * ELEMENT_OVERHEAD;
+		}
+		return LAYOUTS.get(type).size;
+	}
+
+	/** Returns the objects a walk continues to from an object */
+	private static Iterable<Object> children(Object o) {
+		ArrayList<Object> children = new ArrayList<Object>();
+		Class<?> type = o.getClass();
+		if (type.isArray()) {
+			if (!type.getComponentType().isPrimitive()) {
+				for (Object element : (Object[]) o) {
+					children.add(element);
+				}
+			}
+		} else if (o instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet()) {
+				children.add(entry.getKey());
+				children.add(entry.getValue());
+			}
+		} else if (o instanceof Collection) {
+			children.addAll((Collection<?>) o);
+		} else if (!(o instanceof String)) {
+			for (Field field : LAYOUTS.get(type).references) {
+				try {
+					children.add(field.get(o));
+				} catch (IllegalAccessException e) {
+					// counted by its shallow size only
+				}
+			}
+		}
+		return children;
+	}
+
+	/** Returns 1 if a String fits in Latin-1, which Java stores in one byte per character */
+	private static int coder(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > 0xFF) {
+				return 2;
+			}
+		}
+		return 1;
+	}
+
+	private static int primitiveSize(Class<?> type) {
+		if (type == long.class || type == double.class) {
+			return 8;
+		}
+		if (type == int.class || type == float.class) {
+			return 4;
+		}
+		if (type == short.class || type == char.class) {
+			return 2;
+		}
+		return 1;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	private static int align(int size) {
+		return (size + 7) & ~7;
+	}
+
+	/**
+	 * Asks HotSpot whether it compresses references, which it does by default
+	 * for heaps under 32 GB, and assumes it does if the JVM can't tell.
+	 */
+	private static boolean compressedReferences() {
+		try {
+			HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+			return Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+		} catch (RuntimeException | LinkageError e) {
+			return true;
+		}
+	}
+
+	/** The shallow size of a class and the fields that refer to other objects */
+	private static final class Layout {
+		private final long size;
+		private final ArrayList<Field> references;
+
+		Layout(Class<?> type) {
+			long fields = 0;
+			references = new ArrayList<Field>();
+			for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (Modifier.isStatic(field.getModifiers())) {
+						continue;
+					}
+					if (field.getType().isPrimitive()) {
+						fields += primitiveSize(field.getType());
+					} else {
+						fields += REFERENCE;
+						if (field.trySetAccessible()) {
+							references.add(field);
+						}
+					}
+				}
+			}
+			size = align(HEADER + fields);
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package cache;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A cache of key-value pairs whose values are stored serialized outside the
+ * Java heap, so a cache of several gigabytes adds little to the old generation
+ * or to garbage collection pauses. Only the keys and an index from each key
+ * to the address of its value stay on the heap; the values live in the slabs
+ * of a SlabAllocator.
+ *
+ * Which key is evicted is decided by a Cache of keys with any EvictionPolicy.
+ * A pair is evicted either when the Cache is full or when the allocator has no
+ * room for a new value. In that case the policy's victim is evicted, which is
+ * enough if its value was of the new value's size class. Otherwise its slab
+ * only goes back to the allocator once every chunk in it is free, which after
+ * a shift in value sizes could take evicting most of the cache, so the other
+ * pairs stored in that slab are evicted too and the slab is reassigned. A put
+ * therefore evicts at most one slab's worth of pairs, some of them possibly
+ * recently used, and reassigning a slab scans the index of keys once.
+ *
+ * An OffHeapCache is not thread-safe.
+ *
+ * @author chloejohnson
+ *
+ * @param <K> class of keys
+ * @param <V> class of values
+ */
+public class OffHeapCache<K, V> {
+	private final Cache<K> keys;
+	private final HashMap<K, Long> addresses;
+	private final SlabAllocator allocator;
+	private final Serializer<V> serializer;
+
+	/**
+	 * Creates a least recently used cache of at most size pairs whose values use
+	 * at most maxBytes of direct memory.
+	 *
+	 * @param size       the maximum number of pairs
+	 * @param maxBytes   the most direct memory to use for values
+	 * @param serializer converts values to and from bytes
+	 */
+	public OffHeapCache(int size, long maxBytes, Serializer<V> serializer) {
+		this(size, new LRUPolicy<K>(size), new SlabAllocator(maxBytes), serializer);
+	}
+
+	/**
+	 * Creates a cache of at most size pairs that evicts according to the given
+	 * policy and stores values with the given allocator. The policy must be
+	 * empty, and neither may be shared.
+	 *
+	 * @param size       the maximum number of pairs
+	 * @param policy     decides which key to evict
+	 * @param allocator  holds the values
+	 * @param serializer converts values to and from bytes
+	 */
+	public OffHeapCache(int size, EvictionPolicy<K> policy, SlabAllocator allocator, Serializer<V> serializer) {
+		keys = new Cache<K>(size, policy);
+		addresses = new HashMap<K, Long>();
+		this.allocator = allocator;
+		this.serializer = serializer;
+		allocator.clear();
+	}
+
+	/**
+	 * Returns the value of a key, counting as a hit.
+	 *
+	 * @param key
+	 * @return the value, or null if the key isn't cached
+	 */
+	public V get(K key) {
+		Long address = addresses.get(key);
+		if (address == null) {
+			return null;
+		}
+		keys.moveToFront(key);
+		return serializer.read(allocator.buffer(address));
+	}
+
+	/**
+	 * Stores a value for a key, replacing any value it had, and evicts pairs if
+	 * the cache is full or out of memory.
+	 *
+	 * @param key
+	 * @param value
+	 * @throws IllegalArgumentException if the value is larger than a slab
+	 */
+	public void put(K key, V value) {
+		int length = serializer.serializedSize(value);
+		if (length > allocator.maximumLength()) {
+			throw new IllegalArgumentException("A value of " + length + " bytes doesn't fit in a slab");
+		}
+		long address = reserve(key, length);
+		serializer.write(value, allocator.buffer(address));
+		admit(key, address);
+	}
+
+	/**
+	 * Removes a key and its value.
+	 *
+	 * @param key
+	 * @return true if the key was cached
+	 */
+	public boolean remove(K key) {
+		Long address = addresses.remove(key);
+		if (address == null) {
+			return false;
+		}
+		allocator.free(address);
+		keys.removeObject(key);
+		return true;
+	}
+
+	/**
+	 * Returns true if the key is cached. Does not count as a hit.
+	 */
+	public boolean contains(K key) {
+		return addresses.containsKey(key);
+	}
+
+	/**
+	 * Returns the number of cached pairs.
+	 */
+	public int size() {
+		return addresses.size();
+	}
+
+	/**
+	 * Returns the maximum number of cached pairs.
+	 */
+	public int capacity() {
+		return keys.capacity();
+	}
+
+	/**
+	 * Returns the number of bytes of direct memory holding values.
+	 */
+	public long memoryUsed() {
+		return allocator.used();
+	}
+
+	/**
+	 * Returns the most direct memory values may use.
+	 */
+	public long memoryCapacity() {
+		return allocator.capacity();
+	}
+
+	/**
+	 * Removes all pairs. The direct memory stays reserved for reuse.
+	 */
+	public void clearCache() {
+		keys.clearCache();
+		addresses.clear();
+		allocator.clear();
+	}
+
+	/**
+	 * Lists the keys, starting with the one the policy values most.
+	 */
+	public String toString() {
+		return keys.toString();
+	}
+
+	/**
+	 * Returns the keys, starting with the one the policy values most.
+	 */
+	Iterable<K> keys() {
+		return keys.getPolicy();
+	}
+
+	/**
+	 * Returns the serialized value of a cached key without counting as a hit.
+	 */
+	ByteBuffer serializedValue(K key) {
+		return allocator.buffer(addresses.get(key));
+	}
+
+	/**
+	 * Returns the length of the largest serialized value that fits in a slab.
+	 */
+	int maximumValueLength() {
+		return allocator.maximumLength();
+	}
+
+	/**
+	 * Stores an already serialized value for a key, as put does.
+	 *
+	 * @throws IllegalArgumentException if the value is larger than a slab
+	 */
+	void putSerialized(K key, ByteBuffer value) {
+		if (value.remaining() > allocator.maximumLength()) {
+			throw new IllegalArgumentException("A value of " + value.remaining() + " bytes doesn't fit in a slab");
+		}
+		long address = reserve(key, value.remaining());
+		allocator.buffer(address).put(value);
+		admit(key, address);
+	}
+
+	/**
+	 * Frees the old value of a key and allocates room for its new value,
+	 * evicting pairs until the allocator has space.
+	 *
+	 * @return the address to write the value at
+	 */
+	private long reserve(K key, int length) {
+		// the old value is freed first but the key keeps its place in the policy
+		Long old = addresses.remove(key);
+		if (old != null) {
+			allocator.free(old);
+		}
+		long address = allocator.allocate(length);
+		while (address < 0) {
+			K victim = keys.removeLast();
+			Long freed = addresses.get(victim);
+			discard(victim);
+			address = allocator.allocate(length);
+			if (address < 0 && freed != null) {
+				// the victim's chunk was of another class and its slab is still in use
+				releaseSlab((int) (freed >>> 32));
+				address = allocator.allocate(length);
+			}
+		}
+		return address;
+	}
+
+	/** Evicts every pair whose value is in a slab, returning the slab to the allocator */
+	private void releaseSlab(int slab) {
+		Iterator<Map.Entry<K, Long>> it = addresses.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<K, Long> entry = it.next();
+			if ((int) (entry.getValue() >>> 32) == slab) {
+				allocator.free(entry.getValue());
+				keys.removeObject(entry.getKey());
+				it.remove();
+			}
+		}
+	}
+
+	/** Records the value just written for a key and adds the key to the policy */
+	private void admit(K key, long address) {
+		addresses.put(key, address);
+		if (keys.contains(key)) {
+			keys.moveToFront(key);
+		} else {
+			K evicted = keys.addObject(key);
+			if (evicted != null) {
+				discard(evicted);
+			}
+		}
+	}
+
+	/** Frees the value of a key the policy has evicted */
+	private void discard(K key) {
+		Long address = addresses.remove(key);
+		if (address != null) {
+			allocator.free(address);
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Replays a trace against one cache shared by several threads to measure how
+ * throughput and latency scale with the number of threads. The trace is dealt
+ * out round robin, so thread t of n searches items t, t + n, t + 2n and so on,
+ * in order, and each run starts from a new, empty cache.
+ *
+ * In closed-loop mode each thread searches as fast as it can, so throughput
+ * is the most the cache can do. In open-loop mode the threads together issue
+ * searches at a fixed rate, each at its scheduled time whether or not the
+ * previous one is done, and latency is measured from the scheduled time, so a
+ * cache that falls behind shows the queueing delay it causes rather than
+ * hiding it. Every search is timed, into a histogram per thread, and the
+ * histograms are merged when the run ends.
+ *
+ * Threads can be platform threads or virtual threads. Virtual threads need
+ * Java 21; on an older Java the driver falls back to platform threads.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of items in the trace
+ */
+public class ReplayDriver<E> {
+	// a paced thread parks until this close to a search's time, then spins
+	private static final long SPIN_NANOS = 50_000;
+
+	private final E[] trace;
+	private final Supplier<? extends ToIntFunction<? super E>> caches;
+	private final boolean virtual;
+
+	/*
+	 * Creates a driver that replays the trace against caches from the supplier,
+	 * which must return a new thread-safe cache for every run, as a function
+	 * that searches for an item and returns 1 on a hit. Virtual threads are
+	 * used if asked for and available.
+	 */
+	public ReplayDriver(E[] trace, Supplier<? extends ToIntFunction<? super E>> caches, boolean virtual) {
+		this.trace = trace;
+		this.caches = caches;
+		this.virtual = virtual && virtualThreadsAvailable();
+	}
+
+	/**
+	 * Returns true if the threads are virtual threads.
+	 */
+	public boolean usesVirtualThreads() {
+		return virtual;
+	}
+
+	/**
+	 * Replays the whole trace once.
+	 *
+	 * @param threads the number of threads
+	 * @param rate    searches per second for all threads together, or 0 for
+	 *                closed-loop mode
+	 * @return the throughput, latencies and hit ratio of the run
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public Result run(int threads, double rate) throws InterruptedException {
+		if (threads < 1 || rate < 0) {
+			throw new IllegalArgumentException("The thread count must be positive and the rate not negative");
+		}
+		ToIntFunction<? super E> cache = caches.get();
+		// each thread's searches are spaced threads / rate seconds apart
+		long interval = (rate == 0) ? 0 : Math.max(1, (long) (threads * 1e9 / rate));
+		long[][] latencies = new long[threads][LatencyHistogram.BUCKETS];
+		long[] hits = new long[threads];
+		CountDownLatch ready = new CountDownLatch(threads);
+		CountDownLatch go = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		long[] start = new long[1];
+		for (int t = 0; t < threads; t++) {
+			int first = t;
+			workers[t] = newThread(() -> {
+				ready.countDown();
+				try {
+					go.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				hits[first] = replay(cache, first, threads, start[0] + first * interval / threads, interval,
+						latencies[first]);
+			});
+			workers[t].start();
+		}
+		ready.await();
+		start[0] = System.nanoTime();
+		go.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		long elapsed = System.nanoTime() - start[0];
+
+		long[] merged = new long[LatencyHistogram.BUCKETS];
+		long totalHits = 0;
+		for (int t = 0; t < threads; t++) {
+			totalHits += hits[t];
+			for (int i = 0; i < merged.length; i++) {
+				merged[i] += latencies[t][i];
+			}
+		}
+		return new Result(threads, rate, elapsed, new CacheStats(totalHits, trace.length - totalHits, 0, 0, merged));
+	}
+
+	/**
+	 * Searches for every threads-th item starting at first, timing each search,
+	 * and returns the number of hits. With an interval the searches are paced
+	 * from the given start time, and latency includes any wait behind schedule.
+	 */
+	private int replay(ToIntFunction<? super E> cache, int first, int threads, long start, long interval,
+			long[] latencies) {
+		int hits = 0;
+		long next = start;
+		for (int i = first; i < trace.length; i += threads) {
+			long begin;
+			if (interval > 0) {
+				long now = System.nanoTime();
+				while (now - next < 0) {
+					if (next - now > 2 * SPIN_NANOS) {
+						LockSupport.parkNanos(next - now - SPIN_NANOS);
+					} else {
+						Thread.onSpinWait();
+					}
+					now = System.nanoTime();
+				}
+				begin = next;
+				next += interval;
+			} else {
+				begin = System.nanoTime();
+			}
+			hits += cache.applyAsInt(trace[i]);
+			latencies[LatencyHistogram.bucket(System.nanoTime() - begin)]++;
+		}
+		return hits;
+	}
+
+	private Thread newThread(Runnable task) {
+		if (virtual) {
+			try {
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				return (Thread) Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class)
+						.invoke(builder, task);
+			} catch (ReflectiveOperationException e) {
+				// checked when the driver was created
+			}
+		}
+		return new Thread(task);
+	}
+
+	/**
+	 * Returns true if this Java can create virtual threads, looking them up by
+	 * reflection so the driver still builds and runs on Java 17.
+	 */
+	private static boolean virtualThreadsAvailable() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class).invoke(builder,
+					(Runnable) () -> {
+					});
+			return true;
+		} catch (ReflectiveOperationException e) {
+			// before Java 21, or a preview Java that has them switched off
+			return false;
+		}
+	}
+
+	/**
+	 * The outcome of one run: its throughput, and the latency percentiles and
+	 * hit ratio of all of its searches.
+	 */
+	public static final class Result {
+		private final int threads;
+		private final double rate;
+		private final long elapsedNanos;
+		private final CacheStats stats;
+
+		Result(int threads, double rate, long elapsedNanos, CacheStats stats) {
+			this.threads = threads;
+			this.rate = rate;
+			this.elapsedNanos = elapsedNanos;
+			this.stats = stats;
+		}
+
+		/**
+		 * Returns the number of threads.
+		 */
+		public int threads() {
+			return threads;
+		}
+
+		/**
+		 * Returns the searches per second asked for, or 0 for closed loop.
+		 */
+		public double rate() {
+			return rate;
+		}
+
+		/**
+		 * Returns the time from starting the threads until the last finished.
+		 */
+		public long elapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * Returns the searches completed per second.
+		 */
+		public double throughput() {
+			return stats.requestCount() * 1e9 / Math.max(1, elapsedNanos);
+		}
+
+		/**
+		 * Returns the hits, misses and latencies of every search of the run.
+		 */
+		public CacheStats stats() {
+			return stats;
+		}
+
+		public String toString() {
+			return String.format("%-8d %-14.0f %-9d %-9d %-9d %.6f", threads, throughput(),
+					stats.latencyPercentile(50), stats.latencyPercentile(99), stats.latencyPercentile(99.9),
+					stats.hitRatio());
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Approximate least recently used replacement, as Redis does it. Instead of a
+ * recency list, each item has the time of its last access, a counter that
+ * goes up by one on every access, in a flat table, and a hit only writes the
+ * new time into the item's slot, so nothing is relinked or reordered. To
+ * evict, a few items are sampled at random and the one accessed longest ago
+ * is evicted.
+ *
+ * Sampling alone often misses the true least recently used item, so the
+ * oldest candidates seen are kept in a small pool across evictions, as in
+ * Redis 3.0. Each eviction samples more items into the pool and evicts the
+ * oldest one that hasn't been accessed since it was sampled, which brings the
+ * hit ratio close to exact LRU with five samples.
+ *
+ * The items and their times are kept in dense arrays, found through an
+ * open-addressing index of ints, so an item costs a reference, a long and two
+ * index slots rather than a list node and a hash map entry, and a random
+ * sample is a random position in the arrays. Removing an item moves the last
+ * one into its place.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class SampledLRUPolicy<E> implements EvictionPolicy<E> {
+	/** The number of items sampled per eviction, as in Redis */
+	public static final int DEFAULT_SAMPLES = 5;
+
+	private static final int POOL_SIZE = 16;
+
+	private final int samples;
+	private E[] items;
+	private long[] times;
+	// holds item index + 1, 0 for an empty slot
+	private int[] index;
+	private int mask;
+	private int size;
+	private long clock;
+	private long random;
+
+	// the oldest candidates sampled so far, oldest first
+	private final E[] pool;
+	private final long[] poolTimes;
+	private int poolSize;
+
+	/** Creates an empty policy that samples DEFAULT_SAMPLES items */
+	public SampledLRUPolicy() {
+		this(16, DEFAULT_SAMPLES);
+	}
+
+	/**
+	 * Creates an empty policy sized for a cache of the given capacity that
+	 * samples DEFAULT_SAMPLES items.
+	 *
+	 * @param capacity the capacity of the cache
+	 */
+	public SampledLRUPolicy(int capacity) {
+		this(capacity, DEFAULT_SAMPLES);
+	}
+
+	/**
+	 * Creates an empty policy sized for a cache of the given capacity that
+	 * samples the given number of items per eviction.
+	 *
+	 * @param capacity the capacity of the cache
+	 * @param samples  the number of items sampled per eviction
+	 */
+	@SuppressWarnings("unchecked")
+	public SampledLRUPolicy(int capacity, int samples) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("At least one item must be sampled");
+		}
+		this.samples = samples;
+		int length = Math.max(4, capacity + 1);
+		items = (E[]) new Object[length];
+		times = new long[length];
+		index = new int[tableSize(length)];
+		mask = index.length - 1;
+		pool = (E[]) new Object[POOL_SIZE];
+		poolTimes = new long[POOL_SIZE];
+		random = 0x2545F4914F6CDD1DL;
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return find(e) >= 0;
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		int item = find(e);
+		if (item < 0) {
+			return false;
+		}
+		times[item] = ++clock;
+		return true;
+	}
+
+	@Override
+	public void add(E e) {
+		if (size == items.length) {
+			items = Arrays.copyOf(items, size * 2);
+			times = Arrays.copyOf(times, size * 2);
+		}
+		if (2 * (size + 1) > index.length) {
+			rehash(index.length * 2);
+		}
+		items[size] = e;
+		times[size] = ++clock;
+		index[slotOf(e)] = size + 1;
+		size++;
+	}
+
+	/**
+	 * Samples items into the pool and evicts the oldest candidate in the pool
+	 * that is still cached and hasn't been accessed since it was sampled.
+	 */
+	@Override
+	public E evict() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		while (true) {
+			for (int i = 0; i < samples; i++) {
+				int item = (int) ((nextRandom() >>> 33) % size);
+				offer(items[item], times[item]);
+			}
+			while (poolSize > 0) {
+				E candidate = pool[0];
+				long time = poolTimes[0];
+				System.arraycopy(pool, 1, pool, 0, poolSize - 1);
+				System.arraycopy(poolTimes, 1, poolTimes, 0, poolSize - 1);
+				pool[--poolSize] = null;
+				int item = find(candidate);
+				if (item >= 0 && times[item] == time) {
+					removeItem(item);
+					return candidate;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void remove(E e) {
+		int item = find(e);
+		if (item < 0) {
+			throw new NoSuchElementException();
+		}
+		removeItem(item);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(items, 0, size, null);
+		Arrays.fill(index, 0);
+		Arrays.fill(pool, null);
+		size = 0;
+		poolSize = 0;
+	}
+
+	/**
+	 * Returns an iterator over the items, most recently used first. The items
+	 * are sorted by their access times each time an iterator is made.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(times[b], times[a]));
+		ArrayList<E> sorted = new ArrayList<E>(size);
+		for (Integer item : order) {
+			sorted.add(items[item]);
+		}
+		return Collections.unmodifiableList(sorted).iterator();
+	}
+
+	/**
+	 * Adds a sampled item to the pool in order of access time, unless it is
+	 * already there or the pool is full of older items. When the pool is full
+	 * the newest candidate makes way.
+	 */
+	private void offer(E e, long time) {
+		if (poolSize == POOL_SIZE && time >= poolTimes[POOL_SIZE - 1]) {
+			return;
+		}
+		int position = 0;
+		while (position < poolSize && poolTimes[position] <= time) {
+			if (poolTimes[position] == time) {
+				// times are unique, so this item is already a candidate
+				return;
+			}
+			position++;
+		}
+		int moved = Math.min(poolSize, POOL_SIZE - 1) - position;
+		System.arraycopy(pool, position, pool, position + 1, moved);
+		System.arraycopy(poolTimes, position, poolTimes, position + 1, moved);
+		pool[position] = e;
+		poolTimes[position] = time;
+		poolSize = Math.min(poolSize + 1, POOL_SIZE);
+	}
+
+	/**
+	 * Removes the item at a position in the arrays, moving the last item into
+	 * its place.
+	 */
+	private void removeItem(int item) {
+		deleteSlot(slotOf(items[item]));
+		int last = size - 1;
+		if (item != last) {
+			items[item] = items[last];
+			times[item] = times[last];
+			int slot = spread(items[item].hashCode()) & mask;
+			while (index[slot] != last + 1) {
+				slot = (slot + 1) & mask;
+			}
+			index[slot] = item + 1;
+		}
+		items[last] = null;
+		size = last;
+	}
+
+	/** Returns the position of the item in the arrays, or -1 */
+	private int find(E e) {
+		return index[slotOf(e)] - 1;
+	}
+
+	/** Returns the index slot that holds the item, or the empty slot where it belongs */
+	private int slotOf(E e) {
+		int slot = spread(e.hashCode()) & mask;
+		while (index[slot] != 0 && !items[index[slot] - 1].equals(e)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Empties an index slot, moving back any later item in the same run that
+	 * would otherwise no longer be found.
+	 */
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & mask;
+			if (index[current] == 0) {
+				break;
+			}
+			int home = spread(items[index[current] - 1].hashCode()) & mask;
+			// the item can fill the hole unless its home lies after the hole
+			if (((current - home) & mask) >= ((current - hole) & mask)) {
+				index[hole] = index[current];
+				hole = current;
+			}
+		}
+		index[hole] = 0;
+	}
+
+	private void rehash(int length) {
+		index = new int[length];
+		mask = length - 1;
+		for (int i = 0; i < size; i++) {
+			index[slotOf(items[i])] = i + 1;
+		}
+	}
+
+	/** Returns the next number of a xorshift64* generator, seeded the same every time */
+	private long nextRandom() {
+		random ^= random >>> 12;
+		random ^= random << 25;
+		random ^= random >>> 27;
+		return random * 0x2545F4914F6CDD1DL;
+	}
+
+	/** Returns a power of two at least twice the number of items */
+	private static int tableSize(int items) {
+		return Integer.highestOneBit(Math.max(2, items) * 2 - 1) << 1;
+	}
+
+	private static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,98 @@
+package cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts the values of an OffHeapCache, and the items and keys saved in a
+ * CacheSnapshot, to and from bytes.
+ *
+ * @author chloejohnson
+ *
+ * @param <V> class of values stored in the cache
+ */
+public interface Serializer<V> {
+
+	/** Stores Strings as UTF-8, with any unpaired surrogate written as '?' */
+	public static final Serializer<String> STRING = new Serializer<String>() {
+		@Override
+		public int serializedSize(String value) {
+			int size = 0;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					size += 1;
+				} else if (c < 0x800) {
+					size += 2;
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					size += 4;
+					i++;
+				} else if (Character.isSurrogate(c)) {
+					// getBytes writes an unpaired surrogate as a single '?'
+					size += 1;
+				} else {
+					size += 3;
+				}
+			}
+			return size;
+		}
+
+		@Override
+		public void write(String value, ByteBuffer out) {
+			out.put(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String read(ByteBuffer in) {
+			byte[] bytes = new byte[in.remaining()];
+			in.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	/** Stores byte arrays as they are */
+	public static final Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+		@Override
+		public int serializedSize(byte[] value) {
+			return value.length;
+		}
+
+		@Override
+		public void write(byte[] value, ByteBuffer out) {
+			out.put(value);
+		}
+
+		@Override
+		public byte[] read(ByteBuffer in) {
+			byte[] bytes = new byte[in.remaining()];
+			in.get(bytes);
+			return bytes;
+		}
+	};
+
+	/**
+	 * Returns the number of bytes write will produce for the value.
+	 *
+	 * @param value the value
+	 * @return the serialized size in bytes
+	 */
+	public int serializedSize(V value);
+
+	/**
+	 * Writes the value at the buffer's position. The buffer has exactly
+	 * serializedSize(value) bytes remaining.
+	 *
+	 * @param value the value
+	 * @param out   the buffer to write to
+	 */
+	public void write(V value, ByteBuffer out);
+
+	/**
+	 * Reads a value from the buffer's remaining bytes.
+	 *
+	 * @param in the buffer holding one serialized value
+	 * @return the value
+	 */
+	public V read(ByteBuffer in);
+}
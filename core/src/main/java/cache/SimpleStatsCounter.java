@@ -0,0 +1,93 @@
+package cache;
+
+import java.util.Arrays;
+
+/**
+ * A StatsCounter for a cache used by one thread at a time, such as a Cache.
+ * The counts are plain fields, so recording a hit costs an increment, and
+ * every SAMPLE_INTERVAL-th search is timed.
+ *
+ * @author chloejohnson
+ */
+public class SimpleStatsCounter implements StatsCounter {
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long promotions;
+	private final long[] latencies;
+	private int searches;
+
+	/** Creates a counter with every count at zero */
+	public SimpleStatsCounter() {
+		latencies = new long[LatencyHistogram.BUCKETS];
+		reset();
+	}
+
+	@Override
+	public void recordHit() {
+		hits++;
+	}
+
+	@Override
+	public void recordMiss() {
+		misses++;
+	}
+
+	@Override
+	public void recordSearches(int hits, int misses) {
+		this.hits += hits;
+		this.misses += misses;
+	}
+
+	@Override
+	public void recordEviction() {
+		evictions++;
+	}
+
+	@Override
+	public void recordEvictions(int count) {
+		evictions += count;
+	}
+
+	@Override
+	public void recordPromotion() {
+		promotions++;
+	}
+
+	@Override
+	public void recordPromotions(int count) {
+		promotions += count;
+	}
+
+	@Override
+	public long startTimer() {
+		if ((++searches & (SAMPLE_INTERVAL - 1)) != 0) {
+			return 0;
+		}
+		long start = System.nanoTime();
+		// 0 means untimed, so a clock reading of 0 is moved by a nanosecond
+		return (start == 0) ? 1 : start;
+	}
+
+	@Override
+	public void stopTimer(long start) {
+		if (start != 0) {
+			latencies[LatencyHistogram.bucket(System.nanoTime() - start)]++;
+		}
+	}
+
+	@Override
+	public CacheStats snapshot() {
+		return new CacheStats(hits, misses, evictions, promotions, latencies);
+	}
+
+	@Override
+	public void reset() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		promotions = 0;
+		Arrays.fill(latencies, 0);
+		searches = 0;
+	}
+}
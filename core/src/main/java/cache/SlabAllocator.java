@@ -0,0 +1,280 @@
+package cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates variable-length chunks of memory outside the Java heap, for caches
+ * whose values would otherwise fill the old generation. Memory is reserved in
+ * direct ByteBuffer slabs of a fixed size, and each slab is cut into chunks of
+ * one size class, the powers of two from 64 bytes up to the slab size. A value
+ * is stored in the smallest class that fits it, so no more than half of a
+ * chunk is wasted, and a freed chunk is reused by the next value of its class.
+ *
+ * A slab whose chunks are all free goes back to a shared pool and can be cut
+ * into chunks of another class, so the mix of classes follows the values
+ * being stored. Slabs are only reserved when needed, and are never given back
+ * to the operating system, since the direct memory they use is bounded by the
+ * maximum given to the allocator (and by -XX:MaxDirectMemorySize).
+ *
+ * A chunk is identified by an address, the slab number in the high 32 bits
+ * and the offset in the low 32 bits. Its first four bytes hold the length of
+ * the value, or while the chunk is free, the offset of the next free chunk of
+ * the slab. The per-slab bookkeeping lives in int arrays, so the allocator
+ * keeps no objects per chunk on the heap.
+ *
+ * @author chloejohnson
+ */
+public class SlabAllocator {
+	/** The default slab size, one megabyte */
+	public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+	private static final int MINIMUM_SHIFT = 6;
+	private static final int HEADER = 4;
+	private static final int NONE = -1;
+
+	private final int slabSize;
+	private final int classes;
+	private final ByteBuffer[] slabs;
+	// the size class of each slab, or NONE if the slab is in the pool
+	private final int[] slabClass;
+	private final int[] live;
+	private final int[] freeHead;
+	// the offset of the first chunk of the slab that has never been used
+	private final int[] unused;
+	// slabs with a free chunk, doubly linked by class
+	private final int[] partialHead;
+	private final int[] nextPartial;
+	private final int[] previousPartial;
+	private final int[] pool;
+	private int pooled;
+	private int reserved;
+	private long used;
+
+	/**
+	 * Creates an allocator that reserves at most maxBytes of direct memory, in
+	 * slabs of the default size.
+	 *
+	 * @param maxBytes the most memory to reserve
+	 */
+	public SlabAllocator(long maxBytes) {
+		this(maxBytes, DEFAULT_SLAB_SIZE);
+	}
+
+	/**
+	 * Creates an allocator that reserves at most maxBytes of direct memory.
+	 *
+	 * @param maxBytes the most memory to reserve, at least one slab
+	 * @param slabSize the size of a slab, a power of two of at least 64 bytes,
+	 *                 which is also the largest chunk
+	 * @throws IllegalArgumentException if the sizes are out of range
+	 */
+	public SlabAllocator(long maxBytes, int slabSize) {
+		if (slabSize < (1 << MINIMUM_SHIFT) || Integer.bitCount(slabSize) != 1) {
+			throw new IllegalArgumentException("The slab size must be a power of two of at least 64 bytes");
+		}
+		if (maxBytes < slabSize) {
+			throw new IllegalArgumentException("The allocator must hold at least one slab");
+		}
+		this.slabSize = slabSize;
+		classes = Integer.numberOfTrailingZeros(slabSize) - MINIMUM_SHIFT + 1;
+		int count = (int) Math.min(maxBytes / slabSize, Integer.MAX_VALUE - 8);
+		slabs = new ByteBuffer[count];
+		slabClass = new int[count];
+		live = new int[count];
+		freeHead = new int[count];
+		unused = new int[count];
+		nextPartial = new int[count];
+		previousPartial = new int[count];
+		pool = new int[count];
+		partialHead = new int[classes];
+		reserved = 0;
+		clear();
+	}
+
+	/**
+	 * Allocates a chunk for a value of the given length.
+	 *
+	 * @param length the length of the value in bytes
+	 * @return the address of the chunk, or -1 if there is no free chunk of the
+	 *         right class and no slab left to cut one from
+	 * @throws IllegalArgumentException if the value doesn't fit in a slab
+	 */
+	public long allocate(int length) {
+		int sizeClass = sizeClass(length);
+		int slab = partialHead[sizeClass];
+		if (slab == NONE) {
+			slab = takeSlab(sizeClass);
+			if (slab == NONE) {
+				return -1;
+			}
+		}
+		int chunk = chunkSize(sizeClass);
+		int offset = freeHead[slab];
+		if (offset != NONE) {
+			freeHead[slab] = slabs[slab].getInt(offset);
+		} else {
+			offset = unused[slab];
+			unused[slab] += chunk;
+		}
+		live[slab]++;
+		used += chunk;
+		if (!hasFreeChunk(slab)) {
+			unlinkPartial(slab);
+		}
+		slabs[slab].putInt(offset, length);
+		return ((long) slab << 32) | offset;
+	}
+
+	/**
+	 * Frees a chunk. The address must have come from allocate and must not have
+	 * been freed already.
+	 *
+	 * @param address the address of the chunk
+	 */
+	public void free(long address) {
+		int slab = (int) (address >>> 32);
+		int offset = (int) address;
+		int sizeClass = slabClass[slab];
+		boolean wasFull = !hasFreeChunk(slab);
+		slabs[slab].putInt(offset, freeHead[slab]);
+		freeHead[slab] = offset;
+		live[slab]--;
+		used -= chunkSize(sizeClass);
+		if (live[slab] == 0) {
+			if (!wasFull) {
+				unlinkPartial(slab);
+			}
+			slabClass[slab] = NONE;
+			pool[pooled++] = slab;
+		} else if (wasFull) {
+			linkPartial(slab);
+		}
+	}
+
+	/**
+	 * Returns the length of the value stored in a chunk.
+	 */
+	public int length(long address) {
+		return slabs[(int) (address >>> 32)].getInt((int) address);
+	}
+
+	/**
+	 * Returns a buffer over the value stored in a chunk, from position 0 to its
+	 * length. The buffer shares the chunk's memory and is only valid until the
+	 * chunk is freed.
+	 *
+	 * @param address the address of the chunk
+	 * @return a buffer over the value
+	 */
+	public ByteBuffer buffer(long address) {
+		int offset = (int) address;
+		ByteBuffer slab = slabs[(int) (address >>> 32)];
+		return slab.slice(offset + HEADER, slab.getInt(offset));
+	}
+
+	/**
+	 * Returns the number of bytes in allocated chunks, including the space
+	 * rounded up to the size class.
+	 */
+	public long used() {
+		return used;
+	}
+
+	/**
+	 * Returns the number of bytes of direct memory reserved so far.
+	 */
+	public long reserved() {
+		return (long) reserved * slabSize;
+	}
+
+	/**
+	 * Returns the most memory the allocator will reserve.
+	 */
+	public long capacity() {
+		return (long) slabs.length * slabSize;
+	}
+
+	/**
+	 * Returns the largest value that can be allocated.
+	 */
+	public int maximumLength() {
+		return slabSize - HEADER;
+	}
+
+	/**
+	 * Frees every chunk. The slabs already reserved are kept for reuse.
+	 */
+	public void clear() {
+		for (int i = 0; i < classes; i++) {
+			partialHead[i] = NONE;
+		}
+		pooled = 0;
+		for (int slab = reserved - 1; slab >= 0; slab--) {
+			slabClass[slab] = NONE;
+			live[slab] = 0;
+			pool[pooled++] = slab;
+		}
+		used = 0;
+	}
+
+	/**
+	 * Assigns a slab from the pool, or a newly reserved one, to a size class.
+	 *
+	 * @return the slab, or NONE if every slab is in use
+	 */
+	private int takeSlab(int sizeClass) {
+		int slab;
+		if (pooled > 0) {
+			slab = pool[--pooled];
+		} else if (reserved < slabs.length) {
+			slab = reserved++;
+			slabs[slab] = ByteBuffer.allocateDirect(slabSize);
+		} else {
+			return NONE;
+		}
+		slabClass[slab] = sizeClass;
+		live[slab] = 0;
+		freeHead[slab] = NONE;
+		unused[slab] = 0;
+		linkPartial(slab);
+		return slab;
+	}
+
+	private boolean hasFreeChunk(int slab) {
+		return freeHead[slab] != NONE || unused[slab] + chunkSize(slabClass[slab]) <= slabSize;
+	}
+
+	private void linkPartial(int slab) {
+		int sizeClass = slabClass[slab];
+		previousPartial[slab] = NONE;
+		nextPartial[slab] = partialHead[sizeClass];
+		if (partialHead[sizeClass] != NONE) {
+			previousPartial[partialHead[sizeClass]] = slab;
+		}
+		partialHead[sizeClass] = slab;
+	}
+
+	private void unlinkPartial(int slab) {
+		if (previousPartial[slab] != NONE) {
+			nextPartial[previousPartial[slab]] = nextPartial[slab];
+		} else {
+			partialHead[slabClass[slab]] = nextPartial[slab];
+		}
+		if (nextPartial[slab] != NONE) {
+			previousPartial[nextPartial[slab]] = previousPartial[slab];
+		}
+	}
+
+	/** Returns the smallest size class whose chunks hold the value and its header */
+	private int sizeClass(int length) {
+		if (length < 0 || length > slabSize - HEADER) {
+			throw new IllegalArgumentException("A value of " + length + " bytes doesn't fit in a slab");
+		}
+		int shift = 32 - Integer.numberOfLeadingZeros(length + HEADER - 1);
+		return Math.max(shift, MINIMUM_SHIFT) - MINIMUM_SHIFT;
+	}
+
+	private static int chunkSize(int sizeClass) {
+		return 1 << (sizeClass + MINIMUM_SHIFT);
+	}
+}
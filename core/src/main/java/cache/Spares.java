@@ -0,0 +1,44 @@
+package cache;
+
+/**
+ * A bounded stack of the nodes a list has unlinked, kept so that its next adds
+ * can reuse them rather than allocate. Once the stack is full, further nodes
+ * are left to the garbage collector. Nodes should be cleared before they are
+ * offered, so that a spare doesn't keep an element reachable.
+ *
+ * @author chloejohnson
+ *
+ * @param <N> type of node kept
+ */
+final class Spares<N> {
+	private final Object[] nodes;
+	private int count;
+
+	/* Creates an empty stack that keeps at most limit nodes */
+	Spares(int limit) {
+		nodes = new Object[limit];
+		count = 0;
+	}
+
+	/**
+	 * Removes and returns the node offered last, or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	N poll() {
+		if (count == 0) {
+			return null;
+		}
+		N node = (N) nodes[--count];
+		nodes[count] = null;
+		return node;
+	}
+
+	/**
+	 * Keeps a node for reuse, unless the stack is already full.
+	 */
+	void offer(N node) {
+		if (count < nodes.length) {
+			nodes[count++] = node;
+		}
+	}
+}
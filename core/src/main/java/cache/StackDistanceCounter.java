@@ -0,0 +1,188 @@
+package cache;
+
+import java.util.HashMap;
+
+/**
+ * Computes the LRU stack distance of every reference in a trace in one pass,
+ * which gives the hit ratio of a least recently used Cache of every size at
+ * once. The stack distance of a reference is the number of distinct items
+ * referenced since the previous reference to the same item, and a Cache of
+ * size c hits exactly the references whose distance is below c (Mattson et
+ * al., 1970).
+ *
+ * Each item's latest reference time is marked in a Fenwick tree, so the
+ * distinct items referenced since then are counted in O(log n) and the whole
+ * trace takes O(N log N). Time slots are renumbered when they run out, which
+ * keeps the memory proportional to the number of distinct items rather than
+ * the length of the trace.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class StackDistanceCounter<E> {
+	private HashMap<E, Slot> lastReference;
+	private Object[] owners;
+	private int[] tree;
+	private int time;
+	private long[] distances;
+	private long references;
+	private long[] cumulative;
+
+	/** Creates a counter that has seen no references */
+	public StackDistanceCounter() {
+		lastReference = new HashMap<E, Slot>();
+		owners = new Object[1024];
+		tree = new int[owners.length + 1];
+		time = 0;
+		distances = new long[64];
+		references = 0;
+		cumulative = null;
+	}
+
+	/**
+	 * Records a reference to an item.
+	 *
+	 * @param e the item referenced
+	 * @return the stack distance of the reference, or -1 for the first
+	 *         reference to the item
+	 */
+	public int access(E e) {
+		if (time == owners.length) {
+			compact();
+		}
+		references++;
+		cumulative = null;
+		Slot slot = lastReference.get(e);
+		int distance = -1;
+		if (slot == null) {
+			slot = new Slot();
+			lastReference.put(e, slot);
+		} else {
+			// marks after the previous reference belong to distinct items
+			distance = prefixSum(time) - prefixSum(slot.time + 1);
+			add(slot.time, -1);
+			owners[slot.time] = null;
+			if (distance >= distances.length) {
+				long[] larger = new long[Math.max(distances.length * 2, distance + 1)];
+				System.arraycopy(distances, 0, larger, 0, distances.length);
+				distances = larger;
+			}
+			distances[distance]++;
+		}
+		slot.time = time;
+		owners[time] = e;
+		add(time, 1);
+		time++;
+		return distance;
+	}
+
+	/**
+	 * Returns the number of references recorded.
+	 */
+	public long getReferences() {
+		return references;
+	}
+
+	/**
+	 * Returns the number of distinct items referenced, which is the size at
+	 * which only first references miss.
+	 */
+	public int getDistinctItems() {
+		return lastReference.size();
+	}
+
+	/**
+	 * Returns the number of references that hit a least recently used Cache of
+	 * the given size.
+	 *
+	 * @param size the size of the cache
+	 * @return the number of hits
+	 */
+	public long hits(int size) {
+		if (cumulative == null) {
+			cumulative = new long[distances.length + 1];
+			for (int d = 0; d < distances.length; d++) {
+				cumulative[d + 1] = cumulative[d] + distances[d];
+			}
+		}
+		return cumulative[Math.max(0, Math.min(size, distances.length))];
+	}
+
+	/**
+	 * Returns the hit ratio of a least recently used Cache of the given size.
+	 *
+	 * @param size the size of the cache
+	 * @return the hit ratio
+	 */
+	public double hitRatio(int size) {
+		return hits(size) / (double) references;
+	}
+
+	/**
+	 * Returns the miss ratio curve, where element c is the miss ratio of a
+	 * Cache of size c, up to the number of distinct items.
+	 *
+	 * @return the miss ratio for every size
+	 */
+	public double[] missRatioCurve() {
+		double[] curve = new double[getDistinctItems() + 1];
+		for (int size = 0; size < curve.length; size++) {
+			curve[size] = 1 - hitRatio(size);
+		}
+		return curve;
+	}
+
+	/**
+	 * Renumbers the live time slots from zero when they run out, keeping their
+	 * order, and doubles the slots if more than half of them are live.
+	 */
+	private void compact() {
+		int live = lastReference.size();
+		Object[] oldOwners = owners;
+		int length = (live * 2 > oldOwners.length) ? oldOwners.length * 2 : oldOwners.length;
+		owners = new Object[length];
+		tree = new int[length + 1];
+		time = 0;
+		for (Object owner : oldOwners) {
+			if (owner != null) {
+				@SuppressWarnings("unchecked")
+				E e = (E) owner;
+				lastReference.get(e).time = time;
+				owners[time] = owner;
+				time++;
+			}
+		}
+		// builds the tree in linear time from the marks of the live slots
+		for (int i = 1; i <= length; i++) {
+			if (i <= time) {
+				tree[i]++;
+			}
+			int parent = i + (i & -i);
+			if (parent <= length) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	/** Adds a value at a slot of the Fenwick tree */
+	private void add(int index, int value) {
+		for (int i = index + 1; i < tree.length; i += i & -i) {
+			tree[i] += value;
+		}
+	}
+
+	/** Returns the sum of the slots before the index */
+	private int prefixSum(int index) {
+		int sum = 0;
+		for (int i = index; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+
+	/** The time slot of an item's latest reference */
+	private static class Slot {
+		private int time;
+	}
+}
@@ -0,0 +1,88 @@
+package cache;
+
+/**
+ * Records the activity of a cache as it happens: hits, misses, evictions,
+ * promotions and the latency of searches. Only one search in SAMPLE_INTERVAL
+ * is timed, so a counter is cheap enough to leave on all the time. A
+ * CacheStats snapshot of the counts is taken with snapshot().
+ *
+ * A SimpleStatsCounter suits a cache used by one thread at a time, and a
+ * ConcurrentStatsCounter a cache shared between threads.
+ *
+ * @author chloejohnson
+ */
+public interface StatsCounter {
+
+	/** How many searches there are for each one timed, a power of two */
+	public static final int SAMPLE_INTERVAL = 256;
+
+	/**
+	 * Records a search that found its item.
+	 */
+	public void recordHit();
+
+	/**
+	 * Records a search that didn't find its item.
+	 */
+	public void recordMiss();
+
+	/**
+	 * Records the hits and misses of a batch of searches at once.
+	 *
+	 * @param hits   the number of searches that found their items
+	 * @param misses the number that didn't
+	 */
+	public void recordSearches(int hits, int misses);
+
+	/**
+	 * Records an item removed by the eviction policy.
+	 */
+	public void recordEviction();
+
+	/**
+	 * Records a number of evictions at once.
+	 *
+	 * @param count the number of evictions
+	 */
+	public void recordEvictions(int count);
+
+	/**
+	 * Records an item moved up by the eviction policy, such as to the front.
+	 */
+	public void recordPromotion();
+
+	/**
+	 * Records a number of promotions at once.
+	 *
+	 * @param count the number of promotions
+	 */
+	public void recordPromotions(int count);
+
+	/**
+	 * Starts timing a search if it is one of the sampled ones.
+	 *
+	 * @return the start time to pass to stopTimer, or 0 if the search isn't
+	 *         timed
+	 */
+	public long startTimer();
+
+	/**
+	 * Records the latency of a search started with startTimer.
+	 *
+	 * @param start the value startTimer returned
+	 */
+	public void stopTimer(long start);
+
+	/**
+	 * Returns the counts so far. Counts updated while the snapshot is taken may
+	 * or may not be included.
+	 *
+	 * @return a snapshot of the counts
+	 */
+	public CacheStats snapshot();
+
+	/**
+	 * Sets every count back to zero.
+	 */
+	public void reset();
+}
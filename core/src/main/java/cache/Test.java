@@ -0,0 +1,512 @@
+package cache;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+
+/**
+ * The Test class creates Caches, searches the Caches using input specified by
+ * the user, and outputs the data and its hit ratio.
+ *
+ * @author chloejohnson
+ *
+ */
+public class Test {
+
+	// control output - modified by command-line args
+	private int option;
+	private int[] sizes;
+	private CacheHierarchy.Mode mode = CacheHierarchy.Mode.INCLUSIVE;
+	private File textInput;
+	private String policy = "lru";
+	private int[] threadCounts;
+	private double rate = 0;
+	private boolean virtualThreads = false;
+	private boolean admission = false;
+	private int operations = 2000;
+
+	// the sample sizes option 6 compares with exact LRU
+	private static final int[] SAMPLES = { 1, 3, SampledLRUPolicy.DEFAULT_SAMPLES, 10 };
+
+	// global variables
+	private CacheStats stats1;
+	private CacheHierarchy<String> hierarchy;
+	private StackDistanceCounter<String> distances;
+	private ReplayDriver.Result[] runs;
+	private CacheStats[] comparison;
+	private ListStressDriver.Result[][] stressRuns;
+
+	/**
+	 * Executes the main program
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		Test test = new Test(args);
+		test.runTest();
+		test.printResults();
+	}
+
+	/**
+	 * Creates a new Test and checks the user arguments to ensure that they don't
+	 * violate the usage of the Test.
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public Test(String[] args) throws Exception {
+		if (args.length > 0) {
+			if (Integer.parseInt(args[0]) == 1) {
+				option = 1;
+				try {
+					sizes = new int[] { Integer.parseInt(args[1]) };
+					textInput = new File(args[2]);
+					if (args.length > 3) {
+						policy = args[3];
+						// lru+tinylfu filters what lru admits
+						if (policy.endsWith("+tinylfu")) {
+							policy = policy.substring(0, policy.length() - "+tinylfu".length());
+							admission = true;
+						}
+					}
+				} catch (NumberFormatException e) {
+					System.err.println(args[1] + " must be an integer");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else if (Integer.parseInt(args[0]) == 2) {
+				option = 2;
+				try {
+					sizes = new int[] { Integer.parseInt(args[1]), Integer.parseInt(args[2]) };
+					if (sizes[0] > sizes[1]) {
+						throw new Exception(
+								"Cache level 2 must have equal or greater size in relation to cache level 1");
+					}
+					textInput = new File(args[3]);
+					if (args.length > 4) {
+						policy = args[4];
+					}
+				} catch (NumberFormatException e) {
+					System.err.println(args[1] + " and  " + args[2] + " must be integers");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else if (Integer.parseInt(args[0]) == 3) {
+				option = 3;
+				try {
+					mode = CacheHierarchy.Mode.valueOf(args[1].toUpperCase());
+					int count = 0;
+					while (2 + count < args.length && args[2 + count].matches("\\d+")) {
+						count++;
+					}
+					if (count == 0) {
+						throw new Exception("At least one cache size is required");
+					}
+					sizes = new int[count];
+					for (int i = 0; i < count; i++) {
+						sizes[i] = Integer.parseInt(args[2 + i]);
+						if (mode == CacheHierarchy.Mode.INCLUSIVE && i > 0 && sizes[i - 1] > sizes[i]) {
+							throw new Exception("Each inclusive cache level must have equal or greater size "
+									+ "in relation to the level above it");
+						}
+					}
+					textInput = new File(args[2 + count]);
+					if (args.length > 3 + count) {
+						policy = args[3 + count];
+					}
+				} catch (IllegalArgumentException e) {
+					System.err.println(args[1] + " must be inclusive, exclusive or victim");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else if (Integer.parseInt(args[0]) == 4) {
+				option = 4;
+				try {
+					textInput = new File(args[1]);
+					sizes = new int[args.length - 2];
+					for (int i = 0; i < sizes.length; i++) {
+						sizes[i] = Integer.parseInt(args[2 + i]);
+					}
+					if (sizes.length > 2 || (sizes.length == 2 && sizes[0] > sizes[1])) {
+						throw new Exception("Option 4 takes at most two sizes, level 1 first");
+					}
+				} catch (NumberFormatException e) {
+					System.err.println("The cache sizes must be integers");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else if (Integer.parseInt(args[0]) == 5) {
+				option = 5;
+				policy = "concurrent";
+				try {
+					sizes = new int[] { Integer.parseInt(args[1]) };
+					textInput = new File(args[2]);
+					String[] counts = args[3].split(",");
+					threadCounts = new int[counts.length];
+					for (int i = 0; i < counts.length; i++) {
+						threadCounts[i] = Integer.parseInt(counts[i]);
+					}
+					for (int i = 4; i < args.length; i++) {
+						if (args[i].matches("\\d+(\\.\\d+)?")) {
+							rate = Double.parseDouble(args[i]);
+						} else if (args[i].equals("closed")) {
+							rate = 0;
+						} else if (args[i].equals("virtual") || args[i].equals("platform")) {
+							virtualThreads = args[i].equals("virtual");
+						} else {
+							policy = args[i];
+						}
+					}
+				} catch (NumberFormatException e) {
+					System.err.println("The size and thread counts must be integers");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else if (Integer.parseInt(args[0]) == 6) {
+				option = 6;
+				try {
+					sizes = new int[] { Integer.parseInt(args[1]) };
+					textInput = new File(args[2]);
+				} catch (NumberFormatException e) {
+					System.err.println(args[1] + " must be an integer");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else if (Integer.parseInt(args[0]) == 7) {
+				option = 7;
+				try {
+					String[] counts = args[1].split(",");
+					threadCounts = new int[counts.length];
+					for (int i = 0; i < counts.length; i++) {
+						threadCounts[i] = Integer.parseInt(counts[i]);
+					}
+					if (args.length > 2) {
+						operations = Integer.parseInt(args[2]);
+					}
+				} catch (NumberFormatException e) {
+					System.err.println("The thread and key counts must be integers");
+					System.exit(1);
+				} catch (IndexOutOfBoundsException e) {
+					System.err.println("Argument not found");
+				}
+			} else {
+				throw new Exception("Incorrect command-line usage");
+			}
+			// fails on an unknown policy name before any cache is built
+			if (!policy.equals("concurrent")) {
+				EvictionPolicy.create(policy, 0);
+			}
+		} else {
+			throw new Exception("Incorrect command-line usage");
+		}
+	}
+
+	/**
+	 * Creates one cache for option 1, and a hierarchy of two inclusive caches
+	 * for option 2 or of any number of caches in the chosen mode for option 3.
+	 * Every cache evicts with the policy named on the command line. For option
+	 * 1, the cache is searched and counts its own hits and references. For
+	 * options 2 and 3, the hierarchy searches each level until one hits and
+	 * counts the hits and references of every level. For option 4, the stack
+	 * distance of every reference is counted, which predicts the hit ratio of a
+	 * least recently used cache of every size without simulating any.
+	 *
+	 *
+	 * @throws Exception
+	 */
+	private void runTest() throws Exception {
+		if (option == 7) {
+			stressLists();
+			return;
+		}
+		try {
+			Cache<String> cache1;
+
+			MappedTraceReader reader = new MappedTraceReader(textInput);
+			String word;
+			if (option != 4 && option != 5 && option != 6) {
+				System.out.println("Caches evict with the " + policy + " policy");
+			}
+			if (option == 6) {
+				compareSampled(reader);
+			} else if (option == 5) {
+				replay(reader);
+			} else if (option == 4) {
+				distances = new StackDistanceCounter<String>();
+				while (reader.hasNext()) {
+					distances.access(reader.next());
+				}
+			} else if (option == 1) {
+				cache1 = new Cache<String>(sizes[0], EvictionPolicy.<String>create(policy, sizes[0]));
+				if (admission) {
+					cache1.admitByFrequency();
+					System.out.println("Misses are admitted by frequency");
+				}
+				System.out.println("First level cache with " + sizes[0] + " entries has been created");
+				while (reader.hasNext()) {
+					word = reader.next();
+					cache1.search(word);
+				}
+				stats1 = cache1.stats();
+			} else {
+				hierarchy = new CacheHierarchy<String>(mode, policy, sizes);
+				for (int i = 0; i < sizes.length; i++) {
+					System.out.println(levelName(i + 1) + " level cache with " + sizes[i]
+							+ " entries has been created");
+				}
+				while (reader.hasNext()) {
+					word = reader.next();
+					hierarchy.search(word);
+				}
+			}
+			reader.close();
+		} catch (FileNotFoundException e) {
+			System.err.println("The " + textInput + " file couldn't be found");
+		}
+	}
+
+	/**
+	 * Prints the results from the hits and references for options 2 and 3 or
+	 * option 1.
+	 *
+	 * @throws NoSuchLevelFoundException
+	 */
+	private void printResults() throws NoSuchLevelFoundException {
+		if (option == 7) {
+			printStress();
+		} else if (option == 6) {
+			printComparison();
+		} else if (option == 5) {
+			printRuns();
+		} else if (option == 4) {
+			printCurve();
+		} else if (option != 1) {
+			System.out.println("..............................");
+			System.out.println("The number of global references: " + hierarchy.getGlobalReferences());
+			System.out.println("The number of global cache hits: " + hierarchy.getGlobalHits());
+			System.out.println("The global hit ratio                  : " + hierarchy.getGlobalHitRatio());
+			for (int level = 1; level <= hierarchy.getLevelCount(); level++) {
+				String name = ordinal(level);
+				System.out.println("");
+				System.out.println("The number of " + name + "-level references: " + hierarchy.getReferences(level));
+				System.out.println("The number of " + name + "-level cache hits: " + hierarchy.getHits(level));
+				System.out.println("The " + name + "-level hit ratio                  : " + hierarchy.getHitRatio(level));
+			}
+		} else {
+			System.out.println("..............................");
+			System.out.println("The number of references: " + stats1.requestCount());
+			System.out.println("The number of cache hits: " + stats1.hitCount());
+			System.out.println("The hit ratio                  : " + stats1.hitRatio());
+		}
+	}
+
+	/**
+	 * Prints the LRU hit and miss ratios for sizes that are powers of two, up to
+	 * the number of distinct words, followed by the predictions for the sizes
+	 * given on the command line. With two sizes the predictions are for an
+	 * inclusive hierarchy, as in option 2, and for an exclusive one, which acts
+	 * like a single cache of the combined size.
+	 */
+	private void printCurve() {
+		long references = distances.getReferences();
+		int distinct = distances.getDistinctItems();
+		System.out.println("..............................");
+		System.out.println("The number of references: " + references);
+		System.out.println("The number of distinct words: " + distinct);
+		System.out.println("");
+		System.out.println("Cache size      Hit ratio      Miss ratio");
+		for (int size = 1;; size = (size >= distinct / 2) ? distinct : size * 2) {
+			System.out.println(String.format("%-15d %-14.6f %.6f", size, distances.hitRatio(size),
+					1 - distances.hitRatio(size)));
+			if (size >= distinct) {
+				break;
+			}
+		}
+		if (sizes.length == 1) {
+			System.out.println("");
+			System.out.println("The predicted number of cache hits: " + distances.hits(sizes[0]));
+			System.out.println("The predicted hit ratio                  : " + distances.hitRatio(sizes[0]));
+		} else if (sizes.length == 2) {
+			long hits1 = distances.hits(sizes[0]);
+			long hits2 = distances.hits(sizes[1]) - hits1;
+			System.out.println("");
+			System.out.println("Predicted for an inclusive hierarchy:");
+			System.out.println("The number of global cache hits: " + (hits1 + hits2));
+			System.out.println("The global hit ratio                  : " + (hits1 + hits2) / (double) references);
+			System.out.println("The number of 1st-level cache hits: " + hits1);
+			System.out.println("The 1st-level hit ratio                  : " + hits1 / (double) references);
+			System.out.println("The number of 2nd-level references: " + (references - hits1));
+			System.out.println("The number of 2nd-level cache hits: " + hits2);
+			System.out.println("The 2nd-level hit ratio                  : " + hits2 / (double) (references - hits1));
+			long exclusive = distances.hits(sizes[0] + sizes[1]);
+			System.out.println("");
+			System.out.println("Predicted for an exclusive hierarchy:");
+			System.out.println("The number of global cache hits: " + exclusive);
+			System.out.println("The global hit ratio                  : " + exclusive / (double) references);
+			System.out.println("The number of 2nd-level cache hits: " + (exclusive - hits1));
+		}
+	}
+
+	/**
+	 * Reads the whole trace into memory and replays it once for each thread
+	 * count against a new shared cache, after a run on one thread to warm up
+	 * the JIT compiler. The cache is a ConcurrentCache, or a Cache with the
+	 * named policy that every search locks.
+	 */
+	private void replay(MappedTraceReader reader) throws InterruptedException {
+		ArrayList<String> words = new ArrayList<String>();
+		while (reader.hasNext()) {
+			words.add(reader.next());
+		}
+		int size = sizes[0];
+		String name = policy;
+		ReplayDriver<String> driver = new ReplayDriver<String>(words.toArray(new String[0]), () -> {
+			if (name.equals("concurrent")) {
+				return new ConcurrentCache<String>(size)::search;
+			}
+			Cache<String> cache = new Cache<String>(size, EvictionPolicy.<String>create(name, size));
+			return word -> {
+				synchronized (cache) {
+					return cache.search(word);
+				}
+			};
+		}, virtualThreads);
+		System.out.println("Replaying " + words.size() + " words against "
+				+ (name.equals("concurrent") ? "a ConcurrentCache" : "a synchronized " + name + " Cache")
+				+ " with " + size + " entries, " + (rate == 0 ? "closed loop" : "open loop at " + rate + " searches/s")
+				+ ", on " + (driver.usesVirtualThreads() ? "virtual" : "platform") + " threads");
+		if (virtualThreads && !driver.usesVirtualThreads()) {
+			System.out.println("Virtual threads need Java 21, so platform threads are used");
+		}
+		driver.run(1, rate);
+		runs = new ReplayDriver.Result[threadCounts.length];
+		for (int i = 0; i < threadCounts.length; i++) {
+			runs[i] = driver.run(threadCounts[i], rate);
+		}
+	}
+
+	/**
+	 * Prints the throughput, latency percentiles and hit ratio of each run of
+	 * option 5.
+	 */
+	private void printRuns() {
+		System.out.println("..............................");
+		System.out.println(String.format("%-8s %-14s %-9s %-9s %-9s %s", "Threads", "Searches/s", "p50 ns",
+				"p99 ns", "p999 ns", "Hit ratio"));
+		for (ReplayDriver.Result run : runs) {
+			System.out.println(run);
+		}
+	}
+
+	/**
+	 * Searches for every word in an exact LRU cache and in sampled LRU caches
+	 * of the same size that sample each number of items in SAMPLES.
+	 */
+	private void compareSampled(MappedTraceReader reader) {
+		ArrayList<Cache<String>> caches = new ArrayList<Cache<String>>();
+		caches.add(new Cache<String>(sizes[0]));
+		for (int samples : SAMPLES) {
+			caches.add(new Cache<String>(sizes[0], new SampledLRUPolicy<String>(sizes[0], samples)));
+		}
+		System.out.println("Exact and sampled LRU caches with " + sizes[0] + " entries have been created");
+		while (reader.hasNext()) {
+			String word = reader.next();
+			for (Cache<String> cache : caches) {
+				cache.search(word);
+			}
+		}
+		comparison = new CacheStats[caches.size()];
+		for (int i = 0; i < comparison.length; i++) {
+			comparison[i] = caches.get(i).stats();
+		}
+	}
+
+	/**
+	 * Prints the hit ratio of exact LRU and of each sampled LRU cache of option
+	 * 6, with how far each sampled cache falls short of exact LRU.
+	 */
+	private void printComparison() {
+		System.out.println("..............................");
+		System.out.println("The number of references: " + comparison[0].requestCount());
+		System.out.println("");
+		System.out.println(String.format("%-22s %-14s %s", "Policy", "Hit ratio", "Difference"));
+		System.out.println(String.format("%-22s %.6f", "exact lru", comparison[0].hitRatio()));
+		for (int i = 0; i < SAMPLES.length; i++) {
+			String name = "sampled, " + SAMPLES[i] + (SAMPLES[i] == 1 ? " sample" : " samples");
+			System.out.println(String.format("%-22s %-14.6f %+.6f", name, comparison[i + 1].hitRatio(),
+					comparison[i + 1].hitRatio() - comparison[0].hitRatio()));
+		}
+	}
+
+	/**
+	 * Stresses an IUConcurrentLinkedList and a synchronized IUSingleLinkedList
+	 * with each thread count, checking what every run leaves in the list.
+	 */
+	private void stressLists() throws InterruptedException {
+		ListStressDriver concurrent = new ListStressDriver(IUConcurrentLinkedList<Integer>::new, false);
+		ListStressDriver synchronizedSingle = new ListStressDriver(IUSingleLinkedList<Integer>::new, true);
+		System.out.println("Stressing an IUConcurrentLinkedList and a synchronized IUSingleLinkedList with "
+				+ operations + " keys per thread");
+		concurrent.run(1, operations);
+		synchronizedSingle.run(1, operations);
+		stressRuns = new ListStressDriver.Result[2][threadCounts.length];
+		for (int i = 0; i < threadCounts.length; i++) {
+			stressRuns[0][i] = concurrent.run(threadCounts[i], operations);
+			stressRuns[1][i] = synchronizedSingle.run(threadCounts[i], operations);
+		}
+	}
+
+	/**
+	 * Prints the throughput and check of each run of option 7.
+	 */
+	private void printStress() {
+		System.out.println("..............................");
+		System.out.println(String.format("%-14s %-8s %-14s %s", "List", "Threads", "Calls/s", "Check"));
+		for (int i = 0; i < threadCounts.length; i++) {
+			System.out.println(String.format("%-14s %s", "concurrent", stressRuns[0][i]));
+			System.out.println(String.format("%-14s %s", "synchronized", stressRuns[1][i]));
+		}
+	}
+
+	/**
+	 * Returns 1st, 2nd, 3rd, 4th and so on.
+	 */
+	private static String ordinal(int level) {
+		if (level % 100 >= 11 && level % 100 <= 13) {
+			return level + "th";
+		}
+		switch (level % 10) {
+		case 1:
+			return level + "st";
+		case 2:
+			return level + "nd";
+		case 3:
+			return level + "rd";
+		default:
+			return level + "th";
+		}
+	}
+
+	/**
+	 * Returns First, Second and Third, then falls back to the ordinal.
+	 */
+	private static String levelName(int level) {
+		switch (level) {
+		case 1:
+			return "First";
+		case 2:
+			return "Second";
+		case 3:
+			return "Third";
+		default:
+			return ordinal(level);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package cache;
+
+/**
+ * A source of time in nanoseconds for expiring cache entries. Only the
+ * difference between two readings is meaningful, as with System.nanoTime, and
+ * tests can supply their own Ticker to control time.
+ *
+ * @author chloejohnson
+ */
+@FunctionalInterface
+public interface Ticker {
+
+	/** Reads System.nanoTime */
+	public static final Ticker SYSTEM = System::nanoTime;
+
+	/**
+	 * Returns the current time in nanoseconds.
+	 *
+	 * @return the time
+	 */
+	public long read();
+}
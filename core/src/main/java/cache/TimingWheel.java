@@ -0,0 +1,228 @@
+package cache;
+
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel that tells a cache which items have expired
+ * without scanning them (Varghese and Lauck, 1987). Each item is scheduled at
+ * a time in nanoseconds and kept in a bucket of one of five wheels of 64
+ * buckets. A bucket of the first wheel spans about a millisecond (2^20 ns), and
+ * each wheel's buckets span a whole turn of the wheel below it, so the wheels
+ * reach about 67 ms, 4.3 s, 4.6 min, 4.9 h and 13 days ahead. Items further
+ * out than that wait in the last wheel.
+ *
+ * Advancing the time visits only the buckets the clock has passed. Items in
+ * them that are due are expired; the rest are scheduled again, which moves
+ * them into a finer wheel as their time gets closer, so each item is touched
+ * a bounded number of times and expiration is amortized constant time.
+ * Scheduling and descheduling are constant time, since the buckets are
+ * doubly linked lists found through a hash index.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of items scheduled
+ */
+public class TimingWheel<E> {
+	private static final int[] SHIFTS = { 20, 26, 32, 38, 44 };
+	private static final int BUCKETS = 64;
+	private static final int MASK = BUCKETS - 1;
+
+	private final Node<E>[][] wheels;
+	private final HashMap<E, Node<E>> index;
+	private long nanos;
+
+	/**
+	 * Creates an empty wheel whose clock starts at the given time.
+	 *
+	 * @param now the current time in nanoseconds
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(long now) {
+		wheels = (Node<E>[][]) new Node<?>[SHIFTS.length][BUCKETS];
+		for (Node<E>[] wheel : wheels) {
+			for (int i = 0; i < BUCKETS; i++) {
+				wheel[i] = new Node<E>(null);
+			}
+		}
+		index = new HashMap<E, Node<E>>();
+		nanos = now;
+	}
+
+	/**
+	 * Schedules an item to expire at a time, moving it if it is already
+	 * scheduled.
+	 *
+	 * @param e    the item
+	 * @param time the time in nanoseconds at which it expires
+	 */
+	public void schedule(E e, long time) {
+		Node<E> node = index.get(e);
+		if (node == null) {
+			node = new Node<E>(e);
+			index.put(e, node);
+		} else {
+			unlink(node);
+		}
+		node.time = time;
+		link(bucketFor(time), node);
+	}
+
+	/**
+	 * Removes an item from the wheel.
+	 *
+	 * @param e the item
+	 * @return true if the item was scheduled
+	 */
+	public boolean deschedule(E e) {
+		Node<E> node = index.remove(e);
+		if (node == null) {
+			return false;
+		}
+		unlink(node);
+		return true;
+	}
+
+	/**
+	 * Returns the time an item expires.
+	 *
+	 * @param e the item
+	 * @return the time in nanoseconds, or Long.MAX_VALUE if it isn't scheduled
+	 */
+	public long deadline(E e) {
+		Node<E> node = index.get(e);
+		return (node == null) ? Long.MAX_VALUE : node.time;
+	}
+
+	/**
+	 * Returns true if an item is scheduled at or before a time.
+	 *
+	 * @param e   the item
+	 * @param now the time in nanoseconds
+	 * @return true if the item is due
+	 */
+	public boolean isDue(E e, long now) {
+		Node<E> node = index.get(e);
+		return node != null && node.time - now <= 0;
+	}
+
+	/**
+	 * Moves the clock forward and removes the items that have expired, passing
+	 * each to the consumer. Items due within the current bucket of the finest
+	 * wheel may be kept until a later advance. A time earlier than the clock is
+	 * ignored.
+	 *
+	 * @param now     the current time in nanoseconds
+	 * @param expired receives the expired items
+	 */
+	public void advance(long now, Consumer<? super E> expired) {
+		long previous = nanos;
+		if (now - previous <= 0) {
+			return;
+		}
+		nanos = now;
+		// ticks are taken with an arithmetic shift, which keeps them increasing
+		// when the clock crosses zero
+		for (int level = 0; level < SHIFTS.length; level++) {
+			long previousTicks = previous >> SHIFTS[level];
+			long delta = (now >> SHIFTS[level]) - previousTicks;
+			if (delta <= 0) {
+				break;
+			}
+			expire(level, previousTicks, delta, expired);
+		}
+	}
+
+	/**
+	 * Returns the number of items scheduled.
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Removes every item. The clock is kept.
+	 */
+	public void clear() {
+		for (Node<E>[] wheel : wheels) {
+			for (Node<E> sentinel : wheel) {
+				sentinel.next = sentinel;
+				sentinel.previous = sentinel;
+			}
+		}
+		index.clear();
+	}
+
+	/**
+	 * Empties the buckets of a wheel from the previous tick through the current
+	 * one, expiring the items that are due and scheduling the rest again.
+	 */
+	private void expire(int level, long previousTicks, long delta, Consumer<? super E> expired) {
+		Node<E>[] wheel = wheels[level];
+		int steps = (int) Math.min(delta + 1, BUCKETS);
+		int start = (int) (previousTicks & MASK);
+		for (int i = start; i < start + steps; i++) {
+			Node<E> sentinel = wheel[i & MASK];
+			Node<E> node = sentinel.next;
+			sentinel.next = sentinel;
+			sentinel.previous = sentinel;
+			while (node != sentinel) {
+				Node<E> next = node.next;
+				if (node.time - nanos > 0) {
+					link(bucketFor(node.time), node);
+				} else {
+					index.remove(node.element);
+					node.next = null;
+					node.previous = null;
+					expired.accept(node.element);
+				}
+				node = next;
+			}
+		}
+	}
+
+	/**
+	 * Returns the bucket of the finest wheel that reaches the time. A time that
+	 * has passed goes in the current bucket, so the next advance expires it.
+	 */
+	private Node<E> bucketFor(long time) {
+		long duration = time - nanos;
+		if (duration < 0) {
+			time = nanos;
+			duration = 0;
+		}
+		int level = 0;
+		while (level < SHIFTS.length - 1 && duration >= (1L << SHIFTS[level + 1])) {
+			level++;
+		}
+		return wheels[level][(int) ((time >> SHIFTS[level]) & MASK)];
+	}
+
+	private static <E> void link(Node<E> sentinel, Node<E> node) {
+		node.previous = sentinel.previous;
+		node.next = sentinel;
+		sentinel.previous.next = node;
+		sentinel.previous = node;
+	}
+
+	private static <E> void unlink(Node<E> node) {
+		node.previous.next = node.next;
+		node.next.previous = node.previous;
+		node.next = null;
+		node.previous = null;
+	}
+
+	/** An item in a bucket, or a bucket's sentinel when the element is null */
+	private static final class Node<E> {
+		private final E element;
+		private long time;
+		private Node<E> previous;
+		private Node<E> next;
+
+		Node(E element) {
+			this.element = element;
+			previous = this;
+			next = this;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The full 2Q replacement policy of Johnson and Shasha. New items enter a FIFO
+ * queue (A1in) that holds a quarter of the cache; hits there don't promote
+ * them. Items pushed out of A1in are remembered, without their data, in a
+ * ghost FIFO (A1out) of half the cache size. Only an item that misses while it
+ * is remembered in A1out is considered hot and goes into the main LRU queue
+ * (Am). A scan therefore passes through A1in without flushing Am.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class TwoQueuePolicy<E> implements EvictionPolicy<E> {
+	private final int inCapacity;
+	private final int outCapacity;
+	private LRUList<E> in;
+	private LRUList<E> out;
+	private LRUList<E> main;
+
+	/**
+	 * Creates an empty policy for a cache of the given capacity.
+	 *
+	 * @param capacity the capacity of the cache
+	 */
+	public TwoQueuePolicy(int capacity) {
+		inCapacity = Math.max(1, capacity / 4);
+		outCapacity = Math.max(1, capacity / 2);
+		in = new LRUList<E>(inCapacity);
+		out = new LRUList<E>(outCapacity);
+		main = new LRUList<E>(capacity);
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return main.contains(e) || in.contains(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		return main.moveToFront(e) || in.contains(e);
+	}
+
+	@Override
+	public void add(E e) {
+		if (out.contains(e)) {
+			out.remove(e);
+			main.addToFront(e);
+		} else {
+			in.addToFront(e);
+		}
+	}
+
+	@Override
+	public E evict() {
+		if (in.size() > inCapacity || main.isEmpty()) {
+			if (in.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			E victim = in.removeLast();
+			out.addToFront(victim);
+			if (out.size() > outCapacity) {
+				out.removeLast();
+			}
+			return victim;
+		}
+		return main.removeLast();
+	}
+
+	@Override
+	public void remove(E e) {
+		if (main.contains(e)) {
+			main.remove(e);
+		} else {
+			in.remove(e);
+		}
+	}
+
+	@Override
+	public int size() {
+		return main.size() + in.size();
+	}
+
+	@Override
+	public void clear() {
+		in.clear();
+		out.clear();
+		main.clear();
+	}
+
+	/**
+	 * Iterates over the main queue, most recently used first, then over A1in,
+	 * newest first. The items are copied first, so the iterator doesn't support
+	 * removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		ArrayList<E> items = new ArrayList<E>(size());
+		for (E e : main) {
+			items.add(e);
+		}
+		for (E e : in) {
+			items.add(e);
+		}
+		return Collections.unmodifiableList(items).iterator();
+	}
+}
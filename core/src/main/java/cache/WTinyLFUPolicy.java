@@ -0,0 +1,156 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Window TinyLFU replacement as used by Caffeine. New items enter a small LRU
+ * window (1% of the cache). Items leaving the window join the probation segment
+ * of a segmented LRU main area, where a second hit promotes them to the
+ * protected segment (80% of the main area). When the cache is over capacity,
+ * the item that most recently left the window competes with the probation
+ * victim, and the FrequencySketch decides which one is evicted, so a burst of
+ * rare items cannot push out popular ones. Every step is constant time.
+ *
+ * @author chloejohnson
+ *
+ * @param <E>
+ */
+public class WTinyLFUPolicy<E> implements EvictionPolicy<E> {
+	private final int windowCapacity;
+	private final int protectedCapacity;
+	private LRUList<E> window, probation, protect;
+	private FrequencySketch<E> sketch;
+	private E candidate;
+
+	/**
+	 * Creates an empty policy for a cache of the given capacity.
+	 *
+	 * @param capacity the capacity of the cache
+	 */
+	public WTinyLFUPolicy(int capacity) {
+		windowCapacity = Math.max(1, capacity / 100);
+		int mainCapacity = Math.max(0, capacity - windowCapacity);
+		protectedCapacity = mainCapacity * 4 / 5;
+		window = new LRUList<E>(windowCapacity);
+		probation = new LRUList<E>(mainCapacity - protectedCapacity);
+		protect = new LRUList<E>(protectedCapacity);
+		sketch = new FrequencySketch<E>(capacity);
+		candidate = null;
+	}
+
+	@Override
+	public boolean contains(E e) {
+		return window.contains(e) || protect.contains(e) || probation.contains(e);
+	}
+
+	@Override
+	public boolean recordAccess(E e) {
+		if (window.moveToFront(e) || protect.moveToFront(e)) {
+			sketch.increment(e);
+			return true;
+		}
+		if (probation.contains(e)) {
+			sketch.increment(e);
+			probation.remove(e);
+			protect.addToFront(e);
+			if (protect.size() > protectedCapacity) {
+				probation.addToFront(protect.removeLast());
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void add(E e) {
+		sketch.increment(e);
+		window.addToFront(e);
+		if (window.size() > windowCapacity) {
+			candidate = window.removeLast();
+			probation.addToFront(candidate);
+		}
+	}
+
+	@Override
+	public boolean defersEviction() {
+		// evict() compares the candidate the last add() moved out of the window
+		return false;
+	}
+
+	@Override
+	public E evict() {
+		if (candidate != null && probation.contains(candidate)) {
+			E victim = null;
+			if (!probation.last().equals(candidate)) {
+				victim = probation.last();
+			} else if (!protect.isEmpty()) {
+				victim = protect.last();
+			}
+			if (victim != null) {
+				E loser = (sketch.frequency(candidate) > sketch.frequency(victim)) ? victim : candidate;
+				candidate = null;
+				remove(loser);
+				return loser;
+			}
+		}
+		candidate = null;
+		if (!probation.isEmpty()) {
+			return probation.removeLast();
+		}
+		if (!protect.isEmpty()) {
+			return protect.removeLast();
+		}
+		if (!window.isEmpty()) {
+			return window.removeLast();
+		}
+		throw new NoSuchElementException();
+	}
+
+	@Override
+	public void remove(E e) {
+		if (window.contains(e)) {
+			window.remove(e);
+		} else if (protect.contains(e)) {
+			protect.remove(e);
+		} else {
+			probation.remove(e);
+		}
+	}
+
+	@Override
+	public int size() {
+		return window.size() + probation.size() + protect.size();
+	}
+
+	@Override
+	public void clear() {
+		window.clear();
+		probation.clear();
+		protect.clear();
+		sketch.clear();
+		candidate = null;
+	}
+
+	/**
+	 * Iterates over the protected segment, then the window, then probation,
+	 * each most recently used first. The items are copied first, so the
+	 * iterator doesn't support removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		ArrayList<E> items = new ArrayList<E>(size());
+		for (E e : protect) {
+			items.add(e);
+		}
+		for (E e : window) {
+			items.add(e);
+		}
+		for (E e : probation) {
+			items.add(e);
+		}
+		return Collections.unmodifiableList(items).iterator();
+	}
+}
@@ -0,0 +1,39 @@
+package cache;
+
+/**
+ * Reports the weight of a cache item, such as its size in bytes, for a Cache
+ * bounded by total weight instead of by the number of items. An item is
+ * weighed once when it is added, so its weight must not change while it is
+ * cached.
+ *
+ * @author chloejohnson
+ *
+ * @param <E> class of objects stored in the cache
+ */
+@FunctionalInterface
+public interface Weigher<E> {
+
+	/**
+	 * Returns the weight of an item.
+	 *
+	 * @param e the item
+	 * @return the weight, which must not be negative
+	 */
+	public int weigh(E e);
+
+	/**
+	 * Returns a weigher that gives every item a weight of one, which bounds a
+	 * Cache by its number of items.
+	 */
+	public static <E> Weigher<E> singleton() {
+		return e -> 1;
+	}
+
+	/**
+	 * Returns a weigher that estimates the bytes an item and everything it
+	 * refers to take up on the heap, using an ObjectSizeEstimator.
+	 */
+	public static <E> Weigher<E> estimated() {
+		return e -> (int) Math.min(ObjectSizeEstimator.sizeOf(e), Integer.MAX_VALUE);
+	}
+}
@@ -0,0 +1,388 @@
+package cache;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A CacheWriter that queues changes and passes them on to another writer in
+ * batches, from a background thread. Changes to a key that is already queued
+ * replace the queued change, so a key written many times between flushes
+ * reaches the store once, with its latest value, and a key written and then
+ * deleted reaches it only as a delete.
+ *
+ * The queue is flushed when batchSize keys are queued or maxDelay after the
+ * first change of the batch was queued, whichever comes first, and by flush()
+ * and close(). A flush passes the queue on in batches of at most batchSize
+ * keys, each batch's writes to writeAll and its deletes to deleteAll, so a
+ * queue that grew while the store was failing doesn't reach it as one
+ * oversized call. Flushes run one at a time, in order, so the store always
+ * ends up with each key's latest change. When a batch fails, it and the
+ * batches after it are queued again, except for keys changed since, and
+ * retried maxDelay later, and the failure is passed to the error listener.
+ *
+ * Until a change is flushed the store doesn't have it, so a cache that
+ * evicts a key and loads it again would read the old value. overlay() wraps
+ * the store's loader so that it sees the queued changes first.
+ *
+ * @author chloejohnson
+ *
+ * @param <K> class of keys
+ * @param <V> class of values
+ */
+public class WriteBehindWriter<K, V> implements CacheWriter<K, V>, Closeable {
+	// marks a queued delete
+	private static final Object DELETED = new Object();
+
+	private final CacheWriter<K, V> store;
+	private final int batchSize;
+	private final long maxDelayNanos;
+	private final Consumer<? super Exception> errorListener;
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final ReentrantLock flushLock;
+
+	// guarded by this
+	private LinkedHashMap<K, Object> pending;
+	private LinkedHashMap<K, Object> flushing;
+	private ScheduledFuture<?> timer;
+	private boolean flushRequested;
+	private boolean retrying;
+	private boolean closed;
+	private long changes;
+	private long coalesced;
+	private long stored;
+	private long flushes;
+	private long failures;
+
+	/*
+	 * Creates a writer that passes changes on to the store in batches of up to
+	 * batchSize keys, at most maxDelay after they are made. Failed flushes are
+	 * retried but not reported.
+	 */
+	public WriteBehindWriter(CacheWriter<K, V> store, int batchSize, long maxDelay, TimeUnit unit) {
+		this(store, batchSize, maxDelay, unit, e -> {
+		});
+	}
+
+	/*
+	 * Creates a writer that passes changes on to the store in batches of up to
+	 * batchSize keys, at most maxDelay after they are made, and passes the
+	 * exception of each failed background flush to the error listener.
+	 */
+	public WriteBehindWriter(CacheWriter<K, V> store, int batchSize, long maxDelay, TimeUnit unit,
+			Consumer<? super Exception> errorListener) {
+		if (batchSize < 1 || maxDelay < 0) {
+			throw new IllegalArgumentException("The batch size must be positive and the delay not negative");
+		}
+		this.store = Objects.requireNonNull(store);
+		this.batchSize = batchSize;
+		this.maxDelayNanos = unit.toNanos(maxDelay);
+		this.errorListener = Objects.requireNonNull(errorListener);
+		scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread thread = new Thread(r, "write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		flushLock = new ReentrantLock();
+		pending = new LinkedHashMap<K, Object>();
+	}
+
+	/**
+	 * Queues a write, replacing any change to the key that is queued.
+	 *
+	 * @throws IllegalStateException if the writer is closed
+	 */
+	@Override
+	public void write(K key, V value) {
+		enqueue(key, Objects.requireNonNull(value));
+	}
+
+	/**
+	 * Queues a delete, replacing any change to the key that is queued.
+	 *
+	 * @throws IllegalStateException if the writer is closed
+	 */
+	@Override
+	public void delete(K key) {
+		enqueue(key, DELETED);
+	}
+
+	/**
+	 * Queues several writes.
+	 *
+	 * @throws IllegalStateException if the writer is closed
+	 */
+	@Override
+	public synchronized void writeAll(Map<? extends K, ? extends V> entries) {
+		for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+			enqueue(entry.getKey(), Objects.requireNonNull(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Queues several deletes.
+	 *
+	 * @throws IllegalStateException if the writer is closed
+	 */
+	@Override
+	public synchronized void deleteAll(Collection<? extends K> keys) {
+		for (K key : keys) {
+			enqueue(key, DELETED);
+		}
+	}
+
+	/**
+	 * Passes every queued change on to the store now, in this thread, after any
+	 * flush already running.
+	 *
+	 * @throws Exception if the store fails; the changes of the failed batch and
+	 *                   the batches after it stay queued
+	 */
+	public void flush() throws Exception {
+		flushLock.lock();
+		try {
+			LinkedHashMap<K, Object> batch;
+			synchronized (this) {
+				batch = pending;
+				if (batch.isEmpty()) {
+					return;
+				}
+				pending = new LinkedHashMap<K, Object>();
+				flushing = batch;
+				flushRequested = false;
+				if (timer != null) {
+					timer.cancel(false);
+					timer = null;
+				}
+			}
+			ArrayList<Map.Entry<K, Object>> changes = new ArrayList<Map.Entry<K, Object>>(batch.entrySet());
+			try {
+				for (int start = 0; start < changes.size(); start += batchSize) {
+					List<Map.Entry<K, Object>> part = changes.subList(start,
+							Math.min(start + batchSize, changes.size()));
+					try {
+						store(part);
+					} catch (Exception e) {
+						LinkedHashMap<K, Object> unstored = new LinkedHashMap<K, Object>();
+						for (Map.Entry<K, Object> entry : changes.subList(start, changes.size())) {
+							unstored.put(entry.getKey(), entry.getValue());
+						}
+						requeue(unstored);
+						throw e;
+					}
+					synchronized (this) {
+						stored += part.size();
+						flushes++;
+					}
+				}
+			} finally {
+				synchronized (this) {
+					flushing = null;
+				}
+			}
+			synchronized (this) {
+				retrying = false;
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes the queued changes and stops the background thread. Changes made
+	 * afterwards are rejected.
+	 *
+	 * @throws IllegalStateException if the final flush fails; the changes that
+	 *                               couldn't be stored stay queued, but are not
+	 *                               retried
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (timer != null) {
+				timer.cancel(false);
+				timer = null;
+			}
+		}
+		try {
+			flush();
+		} catch (Exception e) {
+			throw new IllegalStateException("Couldn't store the last changes", e);
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	/**
+	 * Returns a loader that finds the changes still queued in this writer
+	 * before asking the given loader, which should read the same store this
+	 * writer writes to. A key whose delete is queued loads as null.
+	 *
+	 * @param loader loads from the store
+	 * @return a loader that sees the queued changes
+	 */
+	public CacheLoader<K, V> overlay(CacheLoader<K, V> loader) {
+		return key -> {
+			Object queued;
+			synchronized (this) {
+				queued = pending.get(key);
+				if (queued == null && flushing != null) {
+					queued = flushing.get(key);
+				}
+			}
+			if (queued == null) {
+				return loader.load(key);
+			}
+			return (queued == DELETED) ? null : value(queued);
+		};
+	}
+
+	/**
+	 * Returns the number of keys with a change queued.
+	 */
+	public synchronized int pendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Returns the number of writes and deletes received.
+	 */
+	public synchronized long changeCount() {
+		return changes;
+	}
+
+	/**
+	 * Returns the number of changes that replaced a queued change to the same
+	 * key and so never reached the store.
+	 */
+	public synchronized long coalescedCount() {
+		return coalesced;
+	}
+
+	/**
+	 * Returns the number of changes the store has accepted.
+	 */
+	public synchronized long storedCount() {
+		return stored;
+	}
+
+	/**
+	 * Returns the number of batches the store has accepted, each of at most
+	 * batchSize keys.
+	 */
+	public synchronized long flushCount() {
+		return flushes;
+	}
+
+	/**
+	 * Returns the number of batches the store has rejected.
+	 */
+	public synchronized long failureCount() {
+		return failures;
+	}
+
+	/** Queues a change and schedules the flush it calls for */
+	private synchronized void enqueue(K key, Object change) {
+		if (closed) {
+			throw new IllegalStateException("The writer is closed");
+		}
+		changes++;
+		if (pending.put(key, change) != null) {
+			coalesced++;
+		}
+		schedule();
+	}
+
+	/**
+	 * Schedules a timed flush for a new batch, or an immediate one for a full
+	 * batch unless a failed flush is waiting to be retried.
+	 */
+	private synchronized void schedule() {
+		if (closed || flushRequested || pending.isEmpty()) {
+			return;
+		}
+		if (pending.size() >= batchSize && !retrying) {
+			flushRequested = true;
+			if (timer != null) {
+				timer.cancel(false);
+				timer = null;
+			}
+			submit(0);
+		} else if (timer == null) {
+			timer = submit(maxDelayNanos);
+		}
+	}
+
+	private ScheduledFuture<?> submit(long delayNanos) {
+		return scheduler.schedule(this::flushInBackground, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/** Flushes on the background thread, reporting failures */
+	private void flushInBackground() {
+		try {
+			flush();
+			// changes made during the flush may have filled another batch
+			schedule();
+		} catch (Exception e) {
+			synchronized (this) {
+				failures++;
+			}
+			errorListener.accept(e);
+		}
+	}
+
+	/** Passes one batch of changes on to the store */
+	private void store(List<Map.Entry<K, Object>> part) throws Exception {
+		LinkedHashMap<K, V> writes = new LinkedHashMap<K, V>();
+		ArrayList<K> deletes = new ArrayList<K>();
+		for (Map.Entry<K, Object> entry : part) {
+			if (entry.getValue() == DELETED) {
+				deletes.add(entry.getKey());
+			} else {
+				writes.put(entry.getKey(), value(entry.getValue()));
+			}
+		}
+		if (!writes.isEmpty()) {
+			store.writeAll(writes);
+		}
+		if (!deletes.isEmpty()) {
+			store.deleteAll(deletes);
+		}
+	}
+
+	/**
+	 * Puts the changes of a failed batch back in the queue, ahead of the
+	 * changes made since, unless a newer change to the same key replaced them,
+	 * and retries them after the delay rather than straight away.
+	 */
+	private synchronized void requeue(LinkedHashMap<K, Object> batch) {
+		LinkedHashMap<K, Object> newer = pending;
+		pending = batch;
+		pending.putAll(newer);
+		retrying = true;
+		flushRequested = false;
+		if (timer != null) {
+			timer.cancel(false);
+		}
+		timer = closed ? null : submit(maxDelayNanos);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> V value(Object change) {
+		return (V) change;
+	}
+}